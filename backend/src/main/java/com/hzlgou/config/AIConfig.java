@@ -1,5 +1,7 @@
 package com.hzlgou.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
@@ -21,6 +23,12 @@ public class AIConfig {
     
     // DeepSeek配置
     private DeepSeekConfig deepseek = new DeepSeekConfig();
+    
+    // AI响应缓存策略，未配置的项沿用cache.defaults.*；不注册到CacheManager
+    private CacheProperties.Spec responseCache = new CacheProperties.Spec();
+    
+    // AI响应持久化存储配置
+    private ResponseStoreConfig responseStore = new ResponseStoreConfig();
 
     public OpenAIConfig getOpenai() {
         return openai;
@@ -54,6 +62,22 @@ public class AIConfig {
         this.deepseek = deepseek;
     }
 
+    public CacheProperties.Spec getResponseCache() {
+        return responseCache;
+    }
+
+    public void setResponseCache(CacheProperties.Spec responseCache) {
+        this.responseCache = responseCache;
+    }
+
+    public ResponseStoreConfig getResponseStore() {
+        return responseStore;
+    }
+
+    public void setResponseStore(ResponseStoreConfig responseStore) {
+        this.responseStore = responseStore;
+    }
+
     public static class OpenAIConfig {
         private String apiKey;
         private String apiUrl = "https://api.openai.com/v1";
@@ -150,6 +174,8 @@ public class AIConfig {
         private String apiUrl = "http://localhost:8081/v1";
         private String apiKey = "dummy_key";
         private String model = "deepseek-chat";
+        // 并发调用API的最大请求数
+        private int maxConcurrency = 8;
         
         // Getters and Setters
         public String getApiUrl() {
@@ -170,5 +196,48 @@ public class AIConfig {
         public void setModel(String model) {
             this.model = model;
         }
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+    }
+    
+    public static class ResponseStoreConfig {
+        // 是否把AI响应持久化到本地文件
+        private boolean enabled = true;
+        // MVStore文件路径
+        private String path = "data/ai-responses.mv.db";
+        // 响应保存多久，过期后视为未命中并在清理时删除
+        private Duration ttl = Duration.ofDays(30);
+        // 最多保存的响应数，超出时删除最早写入的响应
+        private int maxEntries = 100000;
+        
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        public String getPath() {
+            return path;
+        }
+        public void setPath(String path) {
+            this.path = path;
+        }
+        public Duration getTtl() {
+            return ttl;
+        }
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,12 @@
 package com.hzlgou.config;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.hzlgou.util.ObjectSizeEstimator;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * 缓存配置类
  */
@@ -15,17 +14,49 @@ import java.util.concurrent.TimeUnit;
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
         CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-        cacheManager.setCaffeine(Caffeine.newBuilder()
-                // 设置缓存过期时间为30天
-                .expireAfterWrite(30, TimeUnit.DAYS)
-                // 初始缓存大小
-                .initialCapacity(1000)
-                // 最大缓存大小
-                .maximumSize(10000)
-                // 统计缓存命中率
-                .recordStats());
+        // 未单独配置的缓存使用默认策略
+        cacheManager.setCaffeine(newBuilder(withoutRefresh(cacheProperties.getSpec(null))));
+        // 单独配置的缓存各自使用自己的策略
+        for (String name : cacheProperties.getSpecs().keySet()) {
+            cacheManager.registerCustomCache(name, newBuilder(withoutRefresh(cacheProperties.getSpec(name))).build());
+        }
         return cacheManager;
     }
+
+    // CacheManager中的缓存没有加载器，无法刷新；refreshAfterWrite只用于AI响应缓存（ai.response-cache.*）这类自带加载器的缓存
+    private static CacheProperties.Spec withoutRefresh(CacheProperties.Spec spec) {
+        spec.setRefreshAfterWrite(null);
+        return spec;
+    }
+
+    /**
+     * 按策略创建Caffeine构建器
+     * @param spec 缓存策略
+     * @return 构建器，统计缓存命中率
+     */
+    public static Caffeine<Object, Object> newBuilder(CacheProperties.Spec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder().recordStats();
+        if (spec.getInitialCapacity() != null) {
+            builder.initialCapacity(spec.getInitialCapacity());
+        }
+        if (spec.getMaximumWeight() != null) {
+            // 按估算的条目内存大小淘汰
+            builder.maximumWeight(spec.getMaximumWeight().toBytes())
+                    .weigher(ObjectSizeEstimator::weigh);
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.getRefreshAfterWrite() != null) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
 }
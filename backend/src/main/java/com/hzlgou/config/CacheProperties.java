@@ -0,0 +1,182 @@
+package com.hzlgou.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 缓存策略配置类
+ *
+ * cache.defaults.* 为所有缓存的默认策略，cache.specs.{缓存名}.* 为单个缓存的策略，
+ * 未配置的项沿用默认策略；cache.snapshot.* 为缓存快照（重启预热）配置。
+ */
+@Component
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    // 默认策略
+    private Spec defaults = new Spec();
+
+    // 缓存名 -> 策略
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    // 缓存快照配置
+    private Snapshot snapshot = new Snapshot();
+
+    public CacheProperties() {
+        defaults.setInitialCapacity(1000);
+        defaults.setMaximumSize(10000L);
+        defaults.setExpireAfterWrite(Duration.ofDays(30));
+    }
+
+    /**
+     * 获取指定缓存的策略，未配置的项取默认值
+     * @param cacheName 缓存名，为null或未单独配置时返回默认策略
+     * @return 合并后的策略（副本，可以修改）
+     */
+    public Spec getSpec(String cacheName) {
+        return merge(cacheName != null ? specs.get(cacheName) : null);
+    }
+
+    /**
+     * 合并不在specs中配置的缓存策略（如ai.response-cache），未配置的项取默认值
+     * @param spec 缓存策略，为null时返回默认策略
+     * @return 合并后的策略（副本，可以修改）
+     */
+    public Spec merge(Spec spec) {
+        if (spec == null) {
+            spec = new Spec();
+        }
+        Spec merged = new Spec();
+        merged.setInitialCapacity(spec.getInitialCapacity() != null ? spec.getInitialCapacity() : defaults.getInitialCapacity());
+        // 配置了内存上限时按权重淘汰，不再限制条目数
+        if (spec.getMaximumWeight() != null) {
+            merged.setMaximumWeight(spec.getMaximumWeight());
+        } else if (spec.getMaximumSize() != null) {
+            merged.setMaximumSize(spec.getMaximumSize());
+        } else {
+            merged.setMaximumWeight(defaults.getMaximumWeight());
+            merged.setMaximumSize(defaults.getMaximumSize());
+        }
+        merged.setExpireAfterWrite(spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : defaults.getExpireAfterWrite());
+        merged.setExpireAfterAccess(spec.getExpireAfterAccess() != null ? spec.getExpireAfterAccess() : defaults.getExpireAfterAccess());
+        merged.setRefreshAfterWrite(spec.getRefreshAfterWrite() != null ? spec.getRefreshAfterWrite() : defaults.getRefreshAfterWrite());
+        return merged;
+    }
+
+    public Spec getDefaults() {
+        return defaults;
+    }
+
+    public void setDefaults(Spec defaults) {
+        this.defaults = defaults;
+    }
+
+    public Map<String, Spec> getSpecs() {
+        return specs;
+    }
+
+    public void setSpecs(Map<String, Spec> specs) {
+        this.specs = specs;
+    }
+
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(Snapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * 缓存快照：关闭时保存词典缓存中最热的键，启动后在后台按这些键预热缓存
+     */
+    public static class Snapshot {
+        // 是否启用
+        private boolean enabled = true;
+        // 快照文件路径
+        private String path = "data/cache-snapshot.bin";
+        // 每个缓存最多保存的键数
+        private int maxEntries = 5000;
+
+        // Getters and Setters
+        public boolean isEnabled() {
+            return enabled;
+        }
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        public String getPath() {
+            return path;
+        }
+        public void setPath(String path) {
+            this.path = path;
+        }
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * 单个缓存的策略
+     */
+    public static class Spec {
+        // 初始容量
+        private Integer initialCapacity;
+        // 最大条目数
+        private Long maximumSize;
+        // 最大内存（按估算的条目大小计算），优先于maximumSize
+        private DataSize maximumWeight;
+        // 写入后过期时间
+        private Duration expireAfterWrite;
+        // 访问后过期时间
+        private Duration expireAfterAccess;
+        // 写入后多久在后台刷新（仅对带加载器的缓存生效）
+        private Duration refreshAfterWrite;
+
+        // Getters and Setters
+        public Integer getInitialCapacity() {
+            return initialCapacity;
+        }
+        public void setInitialCapacity(Integer initialCapacity) {
+            this.initialCapacity = initialCapacity;
+        }
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+        public DataSize getMaximumWeight() {
+            return maximumWeight;
+        }
+        public void setMaximumWeight(DataSize maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+        public Duration getExpireAfterWrite() {
+            return expireAfterWrite;
+        }
+        public void setExpireAfterWrite(Duration expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+        }
+        public Duration getExpireAfterAccess() {
+            return expireAfterAccess;
+        }
+        public void setExpireAfterAccess(Duration expireAfterAccess) {
+            this.expireAfterAccess = expireAfterAccess;
+        }
+        public Duration getRefreshAfterWrite() {
+            return refreshAfterWrite;
+        }
+        public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+}
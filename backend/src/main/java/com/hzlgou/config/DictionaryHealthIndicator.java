@@ -0,0 +1,36 @@
+package com.hzlgou.config;
+
+import com.hzlgou.service.WordPhraseService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * 词库健康检查（/actuator/health中的dictionary）
+ *
+ * 后台初始化完成前为OUT_OF_SERVICE，失败时为DOWN；它属于readiness组，
+ * 负载均衡按/actuator/health/readiness判断是否转发流量。
+ */
+@Component
+public class DictionaryHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private WordPhraseService wordPhraseService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder;
+        switch (wordPhraseService.getStartupPhase()) {
+            case READY:
+                builder = Health.up();
+                break;
+            case FAILED:
+                builder = Health.down();
+                break;
+            default:
+                builder = Health.outOfService();
+        }
+        return builder.withDetails(wordPhraseService.getStartupStatus()).build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.hzlgou.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 词典数据源配置类
+ *
+ * 启动时若预编译词典镜像存在且不比CSV旧，从镜像导入数据库，否则解析CSV。
+ * 镜像由com.hzlgou.util.DictionaryCompiler离线生成。
+ */
+@Component
+@ConfigurationProperties(prefix = "dictionary")
+public class DictionaryProperties {
+
+    // 单词CSV路径
+    private String wordsCsv = "c:/Trae/English/data/words.csv";
+
+    // 短语CSV路径
+    private String phrasesCsv = "c:/Trae/English/data/phrases.csv";
+
+    // 预编译词典镜像路径，为空时不使用镜像
+    private String imagePath = "data/dictionary.bin";
+
+    public String getWordsCsv() {
+        return wordsCsv;
+    }
+
+    public void setWordsCsv(String wordsCsv) {
+        this.wordsCsv = wordsCsv;
+    }
+
+    public String getPhrasesCsv() {
+        return phrasesCsv;
+    }
+
+    public void setPhrasesCsv(String phrasesCsv) {
+        this.phrasesCsv = phrasesCsv;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public void setImagePath(String imagePath) {
+        this.imagePath = imagePath;
+    }
+}
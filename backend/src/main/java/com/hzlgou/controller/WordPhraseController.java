@@ -3,11 +3,15 @@ package com.hzlgou.controller;
 import com.hzlgou.model.Phrase;
 import com.hzlgou.model.Word;
 import com.hzlgou.service.AIService;
+import com.hzlgou.service.DictionaryCacheService;
 import com.hzlgou.service.WordPhraseService;
+import com.hzlgou.util.Tokenizer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -25,24 +29,29 @@ public class WordPhraseController {
     @Autowired
     private AIService aiService;
     
+    @Autowired
+    private DictionaryCacheService dictionaryCacheService;
+    
     /**
      * 分词接口
      */
     @PostMapping("/tokenize")
-    public Map<String, List<Map<String, String>>> tokenize(@RequestBody Map<String, String> request) {
+    public Map<String, List<Map<String, Object>>> tokenize(@RequestBody Map<String, String> request) {
         String text = request.get("text");
-        List<String> tokens = wordPhraseService.tokenize(text);
+        Tokenizer.TokenSpans spans = wordPhraseService.tokenizeSpans(text);
         
-        // 转换为前端期望的格式
-        List<Map<String, String>> formattedTokens = new ArrayList<>();
-        for (String token : tokens) {
-            Map<String, String> tokenObj = new HashMap<>();
-            tokenObj.put("text", token);
-            tokenObj.put("type", "word"); // 默认类型为word
+        // 转换为前端期望的格式，start/end为词元在原文中的位置（左闭右开），可用于高亮
+        List<Map<String, Object>> formattedTokens = new ArrayList<>();
+        for (int i = 0; i < spans.size(); i++) {
+            Map<String, Object> tokenObj = new HashMap<>();
+            tokenObj.put("text", spans.text(i));
+            tokenObj.put("type", spans.type(i).name().toLowerCase()); // word / number / punctuation
+            tokenObj.put("start", spans.start(i));
+            tokenObj.put("end", spans.end(i));
             formattedTokens.add(tokenObj);
         }
         
-        Map<String, List<Map<String, String>>> response = new HashMap<>();
+        Map<String, List<Map<String, Object>>> response = new HashMap<>();
         response.put("tokens", formattedTokens);
         return response;
     }
@@ -53,15 +62,31 @@ public class WordPhraseController {
         return wordPhraseService.processArticle(text);
     }
     
+    /**
+     * 流式处理文章（SSE）：分词结果立即返回，单词信息逐个推送，翻译最后推送
+     */
+    @PostMapping(value = "/process-article/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> processArticleStream(@RequestBody Map<String, String> request) {
+        String text = request.getOrDefault("text", "");
+        return wordPhraseService.processArticleStream(text);
+    }
+    
     // 单词本相关接口
     @PostMapping("/wordbook/toggle/{wordId}")
     public Map<String, Object> toggleWordBookMark(@PathVariable Long wordId) {
         return wordPhraseService.toggleWordBookMark(wordId);
     }
     
+    /**
+     * 分页获取单词本，按加入时间倒序
+     * @param cursor 上一页返回的nextCursor，省略时取第一页
+     * @param limit 每页条数（最多200）
+     * @return items(单词列表)，nextCursor(下一页游标，没有更多时为null)
+     */
     @GetMapping("/wordbook")
-    public List<Map<String, Object>> getWordBook() {
-        return wordPhraseService.getWordBook();
+    public Map<String, Object> getWordBook(@RequestParam(required = false) String cursor,
+                                           @RequestParam(required = false, defaultValue = "50") int limit) {
+        return wordPhraseService.getWordBook(cursor, limit);
     }
     
     @PostMapping("/wordbook/note/{wordId}")
@@ -75,17 +100,7 @@ public class WordPhraseController {
      */
     @PostMapping("/phrase")
     public Map<String, Object> getPhraseInfo(@RequestBody Map<String, Object> request) {
-        // 安全地转换tokens为List<String>
-        List<String> tokens = new ArrayList<>();
-        Object tokensObj = request.get("tokens");
-        if (tokensObj instanceof List) {
-            List<?> list = (List<?>) tokensObj;
-            for (Object item : list) {
-                if (item instanceof String) {
-                    tokens.add((String) item);
-                }
-            }
-        }
+        List<String> tokens = toTokenList(request.get("tokens"));
         
         // 安全地转换index为Integer
         Integer index = 0;
@@ -103,6 +118,52 @@ public class WordPhraseController {
         return wordPhraseService.getPhraseOrWordInfo(tokens, index);
     }
     
+    /**
+     * 批量获取单词/短语信息接口：一次请求解析同一词元序列的多个位置
+     * 请求体：tokens(词元列表)，indices(词元下标列表，省略时解析全部位置)
+     */
+    @PostMapping("/phrase/batch")
+    public List<Map<String, Object>> getPhraseInfos(@RequestBody Map<String, Object> request) {
+        List<String> tokens = toTokenList(request.get("tokens"));
+        
+        // 安全地转换indices为List<Integer>
+        List<Integer> indices = new ArrayList<>();
+        Object indicesObj = request.get("indices");
+        if (indicesObj instanceof List) {
+            for (Object item : (List<?>) indicesObj) {
+                if (item instanceof Integer) {
+                    indices.add((Integer) item);
+                } else if (item != null) {
+                    try {
+                        indices.add(Integer.parseInt(item.toString()));
+                    } catch (NumberFormatException e) {
+                        // 忽略无效下标
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < tokens.size(); i++) {
+                indices.add(i);
+            }
+        }
+        
+        return wordPhraseService.getPhraseOrWordInfos(tokens, indices);
+    }
+    
+    // 安全地转换tokens为List<String>
+    private static List<String> toTokenList(Object tokensObj) {
+        List<String> tokens = new ArrayList<>();
+        if (tokensObj instanceof List) {
+            List<?> list = (List<?>) tokensObj;
+            for (Object item : list) {
+                if (item instanceof String) {
+                    tokens.add((String) item);
+                }
+            }
+        }
+        return tokens;
+    }
+    
     /**
      * 添加单词
      */
@@ -124,6 +185,9 @@ public class WordPhraseController {
             existingWord.setPronunciation(word.getPronunciation());
             existingWord.setDerivation(word.getDerivation());
             existingWord.setTip(word.getTip());
+            if (word.getFrequency() != null) {
+                existingWord.setFrequency(word.getFrequency());
+            }
             
             Word updatedWord = wordPhraseService.saveWord(existingWord);
             return ResponseEntity.ok(updatedWord);
@@ -236,14 +300,33 @@ public class WordPhraseController {
         return aiService.getWordDetails(word);
     }
     
+    /**
+     * AI请求合并统计
+     */
+    @GetMapping("/ai/stats")
+    public Map<String, Object> getAIStats() {
+        return aiService.getCoalescingStats();
+    }
+    
+    /**
+     * 词典缓存命中统计
+     */
+    @GetMapping("/cache/stats")
+    public Map<String, Object> getCacheStats() {
+        return dictionaryCacheService.getStats();
+    }
+    
     /**
      * 快速搜索单词
      * @param keyword 搜索关键词
-     * @param type 搜索类型：prefix(前缀搜索), substring(子串搜索), exact(精确搜索)
+     * @param type 搜索类型：prefix(前缀搜索), substring(子串搜索), fuzzy(容错搜索), exact(精确搜索)
+     * @param limit 最多返回的数量，前缀搜索按词频取Top-K，小于等于0表示不限制
      * @return 匹配的单词列表
      */
     @GetMapping("/search/words")
-    public List<Map<String, Object>> searchWords(@RequestParam String keyword, @RequestParam(required = false, defaultValue = "prefix") String type) {
-        return wordPhraseService.searchWords(keyword, type);
+    public List<Map<String, Object>> searchWords(@RequestParam String keyword,
+                                                 @RequestParam(required = false, defaultValue = "prefix") String type,
+                                                 @RequestParam(required = false, defaultValue = "20") int limit) {
+        return wordPhraseService.searchWords(keyword, type, limit);
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+package com.hzlgou.model;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * 词库导入状态：记录上次成功导入时数据源的指纹，
+ * 使用持久化数据库时数据源未变化则启动时跳过导入
+ */
+@Entity
+@Table(name = "import_state")
+public class ImportState {
+    @Id
+    private String source;
+    
+    // 数据源指纹（路径、大小、修改时间）
+    @Column(nullable = false, length = 2048)
+    private String fingerprint;
+    
+    @Column(name = "imported_at")
+    @Temporal(TemporalType.TIMESTAMP)
+    private Date importedAt = new Date();
+    
+    public ImportState() {
+    }
+    
+    public ImportState(String source, String fingerprint) {
+        this.source = source;
+        this.fingerprint = fingerprint;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public void setSource(String source) {
+        this.source = source;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public void setFingerprint(String fingerprint) {
+        this.fingerprint = fingerprint;
+    }
+    
+    public Date getImportedAt() {
+        return importedAt;
+    }
+    
+    public void setImportedAt(Date importedAt) {
+        this.importedAt = importedAt;
+    }
+}
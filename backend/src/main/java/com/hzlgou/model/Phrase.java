@@ -1,17 +1,26 @@
 package com.hzlgou.model;
 
+import com.hzlgou.util.LookupKey;
+
 import javax.persistence.*;
 
 @Entity
-@Table(name = "phrase")
+@Table(name = "phrase", indexes = {
+        @Index(name = "ux_phrase_phrase", columnList = "phrase", unique = true),
+        @Index(name = "ux_phrase_lookup_key", columnList = "lookup_key", unique = true)
+})
 public class Phrase {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String phrase;
     
+    // 规范化的查找键（见LookupKey），保存时由phrase计算；升级前的旧数据为null，启动时分批回填
+    @Column(name = "lookup_key")
+    private String lookupKey;
+    
     @Column(nullable = false)
     private Integer len;
     
@@ -24,6 +33,12 @@ public class Phrase {
     
     private String tip;
 
+    @PrePersist
+    @PreUpdate
+    void updateLookupKey() {
+        lookupKey = LookupKey.normalize(phrase);
+    }
+
     public Long getId() {
         return id;
     }
@@ -1,17 +1,26 @@
 package com.hzlgou.model;
 
+import com.hzlgou.util.LookupKey;
+
 import javax.persistence.*;
 
 @Entity
-@Table(name = "word")
+@Table(name = "word", indexes = {
+        @Index(name = "ux_word_word", columnList = "word", unique = true),
+        @Index(name = "ux_word_lookup_key", columnList = "lookup_key", unique = true)
+})
 public class Word {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String word;
     
+    // 规范化的查找键（见LookupKey），保存时由word计算；升级前的旧数据为null，启动时分批回填
+    @Column(name = "lookup_key")
+    private String lookupKey;
+    
     private String lemma;
     
     private String pronunciation;
@@ -21,6 +30,15 @@ public class Word {
     private String tip;
     
     private String note;
+    
+    // 词频/优先级分数，用于前缀联想排序
+    private Integer frequency;
+
+    @PrePersist
+    @PreUpdate
+    void updateLookupKey() {
+        lookupKey = LookupKey.normalize(word);
+    }
 
     public Long getId() {
         return id;
@@ -77,4 +95,12 @@ public class Word {
     public void setNote(String note) {
         this.note = note;
     }
+    
+    public Integer getFrequency() {
+        return frequency;
+    }
+    
+    public void setFrequency(Integer frequency) {
+        this.frequency = frequency;
+    }
 }
\ No newline at end of file
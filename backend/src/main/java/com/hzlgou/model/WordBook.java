@@ -4,7 +4,11 @@ import javax.persistence.*;
 import java.util.Date;
 
 @Entity
-@Table(name = "word_book")
+@Table(name = "word_book", indexes = {
+        @Index(name = "ix_word_book_word_id", columnList = "word_id"),
+        // 单词本按加入时间倒序分页
+        @Index(name = "ix_word_book_is_marked_created_at", columnList = "is_marked, created_at")
+})
 public class WordBook {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
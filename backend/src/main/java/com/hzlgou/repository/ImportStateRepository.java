@@ -0,0 +1,7 @@
+package com.hzlgou.repository;
+
+import com.hzlgou.model.ImportState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ImportStateRepository extends JpaRepository<ImportState, String> {
+}
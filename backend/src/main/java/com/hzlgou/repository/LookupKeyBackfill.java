@@ -0,0 +1,72 @@
+package com.hzlgou.repository;
+
+import com.hzlgou.util.LookupKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 为lookup_key为空的旧数据分批回填查找键
+ *
+ * 按id递增分页（每批BATCH_SIZE行），每批一次批量UPDATE，批之间独立提交，不会长时间持有大事务。
+ * 规范化后与已有行冲突的行（如旧数据中只有大小写不同的两个单词）保持为空并记录警告。
+ */
+final class LookupKeyBackfill {
+    private static final Logger log = LoggerFactory.getLogger(LookupKeyBackfill.class);
+
+    // 每批回填的行数
+    private static final int BATCH_SIZE = 1000;
+
+    private LookupKeyBackfill() {
+    }
+
+    /**
+     * 回填查找键
+     * @param jdbcTemplate JdbcTemplate
+     * @param table 表名（word或phrase）
+     * @param textColumn 原文列名
+     * @return 回填的行数
+     */
+    static int run(JdbcTemplate jdbcTemplate, String table, String textColumn) {
+        String selectSql = "SELECT id, " + textColumn + " FROM " + table
+                + " WHERE lookup_key IS NULL AND id > ? ORDER BY id LIMIT " + BATCH_SIZE;
+        String updateSql = "UPDATE " + table + " SET lookup_key = ? WHERE id = ?";
+        int updated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Object[]> rows = jdbcTemplate.query(selectSql,
+                    (rs, rowNum) -> new Object[] {rs.getLong(1), LookupKey.normalize(rs.getString(2))}, lastId);
+            if (rows.isEmpty()) {
+                return updated;
+            }
+            try {
+                for (int count : jdbcTemplate.batchUpdate(updateSql, rows, rows.size(),
+                        (ps, row) -> {
+                            ps.setString(1, (String) row[1]);
+                            ps.setLong(2, (Long) row[0]);
+                        })[0]) {
+                    updated += Math.max(count, 0);
+                }
+            } catch (DataIntegrityViolationException e) {
+                // 批内有冲突时逐行更新，跳过冲突的行
+                updated += updateOneByOne(jdbcTemplate, updateSql, table, rows);
+            }
+            lastId = (Long) rows.get(rows.size() - 1)[0];
+        }
+    }
+
+    private static int updateOneByOne(JdbcTemplate jdbcTemplate, String updateSql, String table, List<Object[]> rows) {
+        int updated = 0;
+        for (Object[] row : rows) {
+            try {
+                updated += jdbcTemplate.update(updateSql, row[1], row[0]);
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Lookup key '{}' of {} id {} conflicts with an existing row, leaving it empty", row[1], table, row[0]);
+            }
+        }
+        return updated;
+    }
+}
@@ -5,6 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface PhraseRepository extends JpaRepository<Phrase, Long> {
+public interface PhraseRepository extends JpaRepository<Phrase, Long>, PhraseRepositoryCustom {
     Optional<Phrase> findByPhrase(String phrase);
+
+    /**
+     * 按规范化的查找键查找（lookup_key列的唯一索引，一次查询）
+     * @param lookupKey LookupKey.normalize的结果
+     */
+    Optional<Phrase> findByLookupKey(String lookupKey);
 }
\ No newline at end of file
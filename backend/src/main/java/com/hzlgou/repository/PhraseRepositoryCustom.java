@@ -0,0 +1,24 @@
+package com.hzlgou.repository;
+
+import com.hzlgou.model.Phrase;
+
+import java.util.List;
+
+/**
+ * 短语批量写入（JDBC批处理，不经过JPA逐条保存）
+ */
+public interface PhraseRepositoryCustom {
+
+    /**
+     * 批量插入或更新短语（按lookup_key匹配，即忽略大小写和撇号写法），用于词库导入
+     * @param phrases 短语列表
+     * @return 写入的行数
+     */
+    int bulkUpsert(List<Phrase> phrases);
+
+    /**
+     * 为lookup_key为空的旧数据分批回填查找键，需在导入之前调用
+     * @return 回填的行数
+     */
+    int backfillLookupKeys();
+}
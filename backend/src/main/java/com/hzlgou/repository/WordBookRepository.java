@@ -1,15 +1,46 @@
 package com.hzlgou.repository;
 
 import com.hzlgou.model.WordBook;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface WordBookRepository extends JpaRepository<WordBook, Long> {
     Optional<WordBook> findByWordId(Long wordId);
-    List<WordBook> findByIsMarkedTrue();
+    
+    /**
+     * 单词本第一页：已标记的条目按加入时间倒序，单词一并取回（一条SQL）
+     * @param pageable 只使用页大小
+     */
+    @Query("select wb from WordBook wb join fetch wb.word where wb.isMarked = true"
+            + " order by wb.createdAt desc, wb.id desc")
+    List<WordBook> findMarkedPage(Pageable pageable);
+    
+    /**
+     * 单词本后续页（键集分页）：排在(createdAt, id)之后的已标记条目，单词一并取回（一条SQL）
+     * @param createdAt 上一页最后一条的加入时间
+     * @param id 上一页最后一条的ID
+     * @param pageable 只使用页大小
+     */
+    @Query("select wb from WordBook wb join fetch wb.word where wb.isMarked = true"
+            + " and (wb.createdAt < :createdAt or (wb.createdAt = :createdAt and wb.id < :id))"
+            + " order by wb.createdAt desc, wb.id desc")
+    List<WordBook> findMarkedPageAfter(@Param("createdAt") Date createdAt, @Param("id") Long id, Pageable pageable);
     List<WordBook> findAllByOrderByCreatedAtDesc();
+    
+    /**
+     * 批量查询单词的单词本标记状态
+     * @param wordIds 单词ID集合
+     * @return 每行为[单词ID, 是否标记]
+     */
+    @Query("select wb.word.id, wb.isMarked from WordBook wb where wb.word.id in :wordIds")
+    List<Object[]> findMarkStatesByWordIds(@Param("wordIds") Collection<Long> wordIds);
 }
\ No newline at end of file
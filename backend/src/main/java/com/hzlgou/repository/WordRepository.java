@@ -5,6 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface WordRepository extends JpaRepository<Word, Long> {
+public interface WordRepository extends JpaRepository<Word, Long>, WordRepositoryCustom {
     Optional<Word> findByWord(String word);
+
+    /**
+     * 按规范化的查找键查找（lookup_key列的唯一索引，一次查询）
+     * @param lookupKey LookupKey.normalize的结果
+     */
+    Optional<Word> findByLookupKey(String lookupKey);
 }
\ No newline at end of file
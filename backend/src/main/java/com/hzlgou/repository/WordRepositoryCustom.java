@@ -0,0 +1,25 @@
+package com.hzlgou.repository;
+
+import com.hzlgou.model.Word;
+
+import java.util.List;
+
+/**
+ * 单词批量写入（JDBC批处理，不经过JPA逐条保存）
+ */
+public interface WordRepositoryCustom {
+
+    /**
+     * 批量插入或更新单词（按lookup_key匹配，即忽略大小写和撇号写法），用于词库导入
+     * 只写入词库字段（lemma、pronunciation、derivation、tip），已有单词的笔记和词频保持不变
+     * @param words 单词列表
+     * @return 写入的行数
+     */
+    int bulkUpsert(List<Word> words);
+
+    /**
+     * 为lookup_key为空的旧数据分批回填查找键，需在导入之前调用
+     * @return 回填的行数
+     */
+    int backfillLookupKeys();
+}
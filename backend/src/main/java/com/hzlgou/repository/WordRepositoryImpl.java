@@ -0,0 +1,59 @@
+package com.hzlgou.repository;
+
+import com.hzlgou.model.Word;
+import com.hzlgou.util.LookupKey;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 单词批量写入实现：H2的MERGE ... KEY (lookup_key)语句 + JdbcTemplate批处理
+ *
+ * 调用方已开启事务时加入该事务（导入整个词库时所有批次在同一个事务中），否则每次调用单独一个事务。
+ * 同一次调用中查找键相同的行只写入最后一行，与按顺序逐行合并的结果一致；按顺序逐批调用时后面的批覆盖前面的批。
+ */
+public class WordRepositoryImpl implements WordRepositoryCustom {
+
+    // 每批提交的行数
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String UPSERT_SQL =
+            "MERGE INTO word (word, lookup_key, lemma, pronunciation, derivation, tip) KEY (lookup_key) VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int bulkUpsert(List<Word> words) {
+        // 按查找键去重，后面的行覆盖前面的行
+        Map<String, Word> byKey = new LinkedHashMap<>();
+        for (Word word : words) {
+            byKey.put(LookupKey.normalize(word.getWord()), word);
+        }
+        int rows = 0;
+        for (int[] batch : jdbcTemplate.batchUpdate(UPSERT_SQL, byKey.entrySet(), BATCH_SIZE, (ps, entry) -> {
+            Word word = entry.getValue();
+            ps.setString(1, word.getWord());
+            ps.setString(2, entry.getKey());
+            ps.setString(3, word.getLemma());
+            ps.setString(4, word.getPronunciation());
+            ps.setString(5, word.getDerivation());
+            ps.setString(6, word.getTip());
+        })) {
+            for (int count : batch) {
+                rows += Math.max(count, 0);
+            }
+        }
+        return rows;
+    }
+
+    @Override
+    public int backfillLookupKeys() {
+        return LookupKeyBackfill.run(jdbcTemplate, "word", "word");
+    }
+}
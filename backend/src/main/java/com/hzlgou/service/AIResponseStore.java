@@ -0,0 +1,50 @@
+package com.hzlgou.service;
+
+import java.util.Map;
+
+/**
+ * AI响应持久化存储接口
+ *
+ * 作为内存中AI响应缓存之后的二级缓存，按（操作、模型、提示词）的内容哈希保存响应，
+ * 重启后相同的请求不必再次调用大模型。响应按写入时间过期，条目数有上限。
+ */
+public interface AIResponseStore {
+
+    /**
+     * 读取已保存的响应
+     * @param operation 操作，如translate、word-details
+     * @param model 模型名
+     * @param prompt 提示词
+     * @return 响应内容，不存在时返回null
+     */
+    String get(String operation, String model, String prompt);
+
+    /**
+     * 保存响应，已存在时覆盖
+     * @param operation 操作
+     * @param model 模型名
+     * @param prompt 提示词
+     * @param response 响应内容
+     */
+    void put(String operation, String model, String prompt, String response);
+
+    /**
+     * 删除已保存的响应，如响应无法解析时
+     * @param operation 操作
+     * @param model 模型名
+     * @param prompt 提示词
+     */
+    void remove(String operation, String model, String prompt);
+
+    /**
+     * 清理过期的响应，条目数超出上限时再删除最早写入的响应
+     * @return 删除的条目数
+     */
+    int purge();
+
+    /**
+     * 获取存储统计
+     * @return enabled、entries(条目数)、hits、misses、writes、removed(删除的无效响应数)、purged(清理的条目数)
+     */
+    Map<String, Object> getStats();
+}
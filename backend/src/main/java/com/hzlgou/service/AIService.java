@@ -2,6 +2,7 @@ package com.hzlgou.service;
 
 import com.hzlgou.model.Phrase;
 import com.hzlgou.model.Word;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 import java.util.Map;
@@ -57,6 +58,15 @@ public interface AIService {
      */
     String translateText(String text, String fromLang, String toLang);
     
+    /**
+     * 异步翻译文本，调用失败时返回模拟翻译
+     * @param text 要翻译的文本
+     * @param fromLang 源语言
+     * @param toLang 目标语言
+     * @return 翻译结果
+     */
+    Mono<String> translateTextAsync(String text, String fromLang, String toLang);
+    
     /**
      * 获取单词的详细信息
      * @param word 单词
@@ -64,10 +74,25 @@ public interface AIService {
      */
     Map<String, Object> getWordDetails(String word);
     
+    /**
+     * 异步获取单词的详细信息，调用失败时返回模拟数据
+     * @param word 单词
+     * @return 包含单词详细信息的Map
+     */
+    Mono<Map<String, Object>> getWordDetailsAsync(String word);
+    
     /**
      * 获取短语的详细信息
      * @param phrase 短语
      * @return 包含短语详细信息的Map
      */
     Map<String, Object> getPhraseDetails(String phrase);
+    
+    /**
+     * 获取请求合并和响应缓存统计
+     * @return backendCalls(真正发出的请求数)、coalescedRequests(被合并的请求数)、inFlight(进行中的请求数)、
+     *         responseCacheHits/responseCacheMisses/responseCacheSize(AI响应缓存的命中数、未命中数、条目数)、
+     *         responseStore(持久化存储的条目数、命中数、未命中数、写入数)
+     */
+    Map<String, Object> getCoalescingStats();
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.hzlgou.service;
+
+import com.hzlgou.model.Word;
+import com.hzlgou.util.LookupKey;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 词典缓存服务接口
+ *
+ * 统一管理单词实体缓存（wordCache）和单词/短语信息缓存（wordPhraseCache），
+ * 键均为规范化（小写）后的文本，数据变更时由调用方显式失效。
+ * 单词查询前先经过布隆过滤器和短期负缓存，不存在的单词不访问数据库。
+ */
+public interface DictionaryCacheService {
+    
+    /**
+     * 读穿透查询单词：缓存未命中时查询数据库并写入缓存，
+     * 布隆过滤器判定不存在或近期已确认不存在的单词直接返回null
+     * @param word 单词（不区分大小写和撇号写法）
+     * @return 单词，不存在时返回null
+     */
+    Word findWord(String word);
+    
+    /**
+     * 获取缓存的单词/短语信息
+     * @param key 缓存键，由{@link #wordInfoKey(String)}或{@link #phraseInfoKey(List)}生成
+     * @return 信息，未缓存时返回null（调用方不应修改返回的对象）
+     */
+    Map<String, Object> getInfo(String key);
+    
+    /**
+     * 缓存单词/短语信息
+     * @param key 缓存键
+     * @param info 信息
+     */
+    void putInfo(String key, Map<String, Object> info);
+    
+    /**
+     * 单词新增或修改时失效其缓存，并把单词加入布隆过滤器、移出负缓存
+     * @param word 单词
+     */
+    void evictWord(String word);
+    
+    /**
+     * 开始重建单词布隆过滤器，此后新增的单词会被记录并补入新过滤器
+     * 需在从数据库加载全部单词之前调用，避免加载期间新增的单词被漏掉
+     */
+    void beginWordFilterRebuild();
+    
+    /**
+     * 用全部单词构建新的布隆过滤器并替换旧的
+     * @param words 数据库中的全部单词
+     */
+    void finishWordFilterRebuild(Collection<String> words);
+    
+    /**
+     * 短语新增或修改时失效其缓存
+     * @param phraseTokens 短语的词元序列
+     */
+    void evictPhrase(List<String> phraseTokens);
+    
+    /**
+     * 把词典缓存中最热的键写入快照文件（按热度从高到低），用于下次启动时预热
+     * 只保存键（单词/短语文本）而不保存值，重启后数据库中的ID和内容可能已变化
+     */
+    void saveSnapshot();
+    
+    /**
+     * 读取快照文件
+     * @return 按热度从高到低排列的词元序列：只有一个词元的为单词，多个词元的为短语；没有快照时返回空列表
+     */
+    List<List<String>> loadSnapshot();
+    
+    /**
+     * 获取缓存统计：每个缓存的命中数、未命中数、命中率、条目数和淘汰数，
+     * 以及布隆过滤器和负缓存拦截的查询数
+     * @return 缓存名 -> 统计信息
+     */
+    Map<String, Object> getStats();
+    
+    /**
+     * 单词信息的缓存键："w:查找键"，查找键由{@link LookupKey#normalize(String)}生成，与区域设置无关
+     */
+    static String wordInfoKey(String word) {
+        return "w:" + LookupKey.normalize(word);
+    }
+    
+    /**
+     * 短语信息的缓存键："p:词元以空格连接后的查找键"
+     */
+    static String phraseInfoKey(List<String> phraseTokens) {
+        return "p:" + LookupKey.normalize(String.join(" ", phraseTokens));
+    }
+}
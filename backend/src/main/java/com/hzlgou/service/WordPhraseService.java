@@ -2,6 +2,9 @@ package com.hzlgou.service;
 
 import com.hzlgou.model.Phrase;
 import com.hzlgou.model.Word;
+import com.hzlgou.util.Tokenizer;
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 import java.util.Map;
@@ -13,13 +16,31 @@ public interface WordPhraseService {
      */
     List<String> tokenize(String text);
     
+    /**
+     * 分词，返回每个词元在原文中的位置和类型
+     */
+    Tokenizer.TokenSpans tokenizeSpans(String text);
+    
     /**
      * 获取最长匹配的短语或单词信息
      */
     Map<String, Object> getPhraseOrWordInfo(List<String> tokens, int index);
     
+    /**
+     * 批量获取多个位置的最长匹配短语或单词信息，只对词元序列做一次短语匹配
+     * @param tokens 词元序列
+     * @param indices 词元下标列表
+     * @return 与indices一一对应的信息列表，每项带index，短语带start/end
+     */
+    List<Map<String, Object>> getPhraseOrWordInfos(List<String> tokens, List<Integer> indices);
+    
     Map<String, Object> processArticle(String text);
     
+    /**
+     * 流式处理文章，依次推送事件：tokens(分词和短语) -> word(每个单词，可能乱序，带index) -> translation(全文翻译) -> done
+     */
+    Flux<ServerSentEvent<Object>> processArticleStream(String text);
+    
     /**
      * 保存单词
      */
@@ -31,15 +52,55 @@ public interface WordPhraseService {
     Phrase savePhrase(Phrase phrase);
     
     /**
-     * 初始化词库和短语库
+     * 初始化词库和短语库：导入数据 -> 构建索引 -> 预热缓存，依次执行，完成前getStartupPhase()不为READY
      */
     void initDatabase();
     
+    /**
+     * 后台初始化的阶段
+     */
+    enum StartupPhase {
+        // 等待启动
+        PENDING,
+        // 导入单词和短语到数据库，此时精确查找可能查不到尚未导入的条目
+        LOADING,
+        // 构建前缀树和各索引，此时前缀、子串、模糊搜索退化为精确查找
+        INDEXING,
+        // 按快照预热缓存
+        WARMING,
+        // 完成，可以接收流量
+        READY,
+        // 初始化失败
+        FAILED
+    }
+    
+    /**
+     * 获取后台初始化的当前阶段
+     */
+    StartupPhase getStartupPhase();
+    
+    /**
+     * 获取后台初始化状态
+     * @return phase(当前阶段)、各阶段耗时(毫秒)、error(失败原因)
+     */
+    Map<String, Object> getStartupStatus();
+    
     // 单词本相关方法
     Map<String, Object> toggleWordBookMark(Long wordId);
-    List<Map<String, Object>> getWordBook();
+    
+    /**
+     * 分页获取单词本（按加入时间倒序，键集分页，每页一条SQL）
+     * @param cursor 上一页返回的nextCursor，为空时取第一页
+     * @param limit 每页条数
+     * @return items(单词列表)，nextCursor(下一页游标，没有更多时为null)
+     */
+    Map<String, Object> getWordBook(String cursor, int limit);
+    
     Map<String, Object> updateWordNote(Long wordId, String note);
     
+    /**
+     * 按单词查找（不区分大小写和撇号写法，直接查询数据库）
+     */
     Optional<Word> findByWord(String word);
     
     /**
@@ -49,4 +110,13 @@ public interface WordPhraseService {
      * @return 匹配的单词列表
      */
     List<Map<String, Object>> searchWords(String keyword, String searchType);
+    
+    /**
+     * 快速搜索单词，最多返回limit条
+     * @param keyword 搜索关键词
+     * @param searchType 搜索类型: prefix(前缀搜索，按词频取Top-K), substring(子串搜索), fuzzy(容错搜索), exact(精确搜索)
+     * @param limit 最多返回的数量，小于等于0表示不限制
+     * @return 匹配的单词列表
+     */
+    List<Map<String, Object>> searchWords(String keyword, String searchType, int limit);
 }
\ No newline at end of file
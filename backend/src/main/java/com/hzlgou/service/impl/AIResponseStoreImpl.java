@@ -0,0 +1,233 @@
+package com.hzlgou.service.impl;
+
+import com.hzlgou.config.AIConfig;
+import com.hzlgou.service.AIResponseStore;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * AI响应持久化存储实现类
+ *
+ * 使用H2自带的MVStore（单文件、嵌入式键值存储）保存响应，键为"操作\0模型\0提示词"的SHA-256，
+ * 值为响应内容，另一张表记录每个键的写入时间。写入先进入内存，由MVStore在后台定期提交到文件，关闭时再提交一次。
+ * 超过ai.response-store.ttl的响应视为未命中，打开时和条目数超过ai.response-store.max-entries时清理，
+ * 超出上限时按写入时间删除最早的响应，并多删十分之一，避免之后每次写入都触发清理。
+ * 文件无法打开时（如被另一个进程占用）只记录警告，存储退化为空操作，不影响AI调用。
+ */
+@Service
+public class AIResponseStoreImpl implements AIResponseStore {
+    private static final Logger log = LoggerFactory.getLogger(AIResponseStoreImpl.class);
+
+    // MVStore中的表名
+    private static final String RESPONSE_MAP = "aiResponses";
+    private static final String WRITE_TIME_MAP = "aiResponseWriteTimes";
+    // 后台提交间隔（毫秒）
+    private static final int AUTO_COMMIT_DELAY_MS = 1000;
+
+    @Autowired
+    private AIConfig aiConfig;
+
+    private MVStore store;
+    private MVMap<String, String> responses;
+    // 键 -> 写入时间（毫秒），旧版本写入、没有时间的响应在清理时删除
+    private MVMap<String, Long> writeTimes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder removed = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    @PostConstruct
+    public void open() {
+        AIConfig.ResponseStoreConfig config = aiConfig.getResponseStore();
+        if (!config.isEnabled()) {
+            log.info("AI response store disabled");
+            return;
+        }
+        try {
+            File file = new File(config.getPath()).getAbsoluteFile();
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                log.warn("Could not create directory for AI response store: {}", parent);
+            }
+            store = new MVStore.Builder()
+                    .fileName(file.getPath())
+                    .compress()
+                    .open();
+            store.setAutoCommitDelay(AUTO_COMMIT_DELAY_MS);
+            responses = store.openMap(RESPONSE_MAP);
+            writeTimes = store.openMap(WRITE_TIME_MAP);
+            log.info("AI response store opened at {} with {} entries", file, responses.size());
+        } catch (RuntimeException e) {
+            log.warn("Could not open AI response store at {}, responses will not be persisted", config.getPath(), e);
+            store = null;
+            responses = null;
+            writeTimes = null;
+            return;
+        }
+        purge();
+    }
+
+    @PreDestroy
+    public void close() {
+        if (store != null && !store.isClosed()) {
+            store.close();
+            log.info("AI response store closed");
+        }
+    }
+
+    @Override
+    public String get(String operation, String model, String prompt) {
+        if (responses == null) {
+            return null;
+        }
+        String key = key(operation, model, prompt);
+        String response = isExpired(writeTimes.get(key), System.currentTimeMillis()) ? null : responses.get(key);
+        if (response != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return response;
+    }
+
+    @Override
+    public void put(String operation, String model, String prompt, String response) {
+        if (responses == null || response == null) {
+            return;
+        }
+        try {
+            String key = key(operation, model, prompt);
+            responses.put(key, response);
+            writeTimes.put(key, System.currentTimeMillis());
+            writes.increment();
+        } catch (RuntimeException e) {
+            // 关闭过程中仍在返回的调用写入失败不影响结果，只是不会被持久化
+            log.warn("Could not persist AI response for operation '{}'", operation, e);
+            return;
+        }
+        if (responses.size() > aiConfig.getResponseStore().getMaxEntries()) {
+            purge();
+        }
+    }
+
+    @Override
+    public void remove(String operation, String model, String prompt) {
+        if (responses == null) {
+            return;
+        }
+        try {
+            String key = key(operation, model, prompt);
+            if (responses.remove(key) != null) {
+                removed.increment();
+            }
+            writeTimes.remove(key);
+        } catch (RuntimeException e) {
+            log.warn("Could not remove AI response for operation '{}'", operation, e);
+        }
+    }
+
+    @Override
+    public synchronized int purge() {
+        if (responses == null) {
+            return 0;
+        }
+        AIConfig.ResponseStoreConfig config = aiConfig.getResponseStore();
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try {
+            // 过期的响应和没有写入时间的响应
+            List<Map.Entry<String, Long>> live = new ArrayList<>();
+            for (String key : responses.keySet()) {
+                Long writtenAt = writeTimes.get(key);
+                if (isExpired(writtenAt, now)) {
+                    responses.remove(key);
+                    writeTimes.remove(key);
+                    count++;
+                } else {
+                    live.add(Map.entry(key, writtenAt));
+                }
+            }
+            // 仍超出上限时删除最早写入的响应，留出十分之一的余量
+            int maxEntries = Math.max(config.getMaxEntries(), 0);
+            if (live.size() > maxEntries) {
+                live.sort(Map.Entry.comparingByValue());
+                int excess = live.size() - (maxEntries - maxEntries / 10);
+                for (int i = 0; i < excess; i++) {
+                    String key = live.get(i).getKey();
+                    responses.remove(key);
+                    writeTimes.remove(key);
+                    count++;
+                }
+            }
+            // 写入时间表中响应已不存在的键
+            for (String key : writeTimes.keySet()) {
+                if (!responses.containsKey(key)) {
+                    writeTimes.remove(key);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not purge AI response store", e);
+        }
+        if (count > 0) {
+            purged.add(count);
+            log.info("Purged {} AI responses, {} left", count, responses.size());
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", responses != null);
+        stats.put("entries", responses != null ? responses.size() : 0);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("writes", writes.sum());
+        stats.put("removed", removed.sum());
+        stats.put("purged", purged.sum());
+        return stats;
+    }
+
+    // 没有写入时间或写入时间早于ttl的响应已过期
+    private boolean isExpired(Long writtenAt, long now) {
+        return writtenAt == null || now - writtenAt > aiConfig.getResponseStore().getTtl().toMillis();
+    }
+
+    // 内容寻址的键：SHA-256("操作\0模型\0提示词")的十六进制
+    private static String key(String operation, String model, String prompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(String.valueOf(model).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            byte[] hash = digest.digest(prompt.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // 所有JVM都必须支持SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -2,46 +2,119 @@ package com.hzlgou.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.hzlgou.config.AIConfig;
+import com.hzlgou.config.CacheConfig;
+import com.hzlgou.config.CacheProperties;
 import com.hzlgou.model.Phrase;
 import com.hzlgou.model.Word;
+import com.hzlgou.service.AIResponseStore;
 import com.hzlgou.service.AIService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.http.MediaType;
+import reactor.core.Exceptions;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 
 /**
  * AI服务实现类
  */
 @Service
 public class AIServiceImpl implements AIService {
+    private static final Logger log = LoggerFactory.getLogger(AIServiceImpl.class);
+
+    // AI响应缓存的指标名，策略见ai.response-cache.*
+    private static final String AI_RESPONSE_CACHE = "aiResponseCache";
+
+    // 指标名：按操作统计的AI调用耗时、实际发往DeepSeek的请求耗时
+    private static final String AI_REQUEST_TIMER = "ai.request";
+    private static final String AI_BACKEND_TIMER = "ai.backend.request";
+
+    // 要求返回JSON对象的操作，响应不是JSON对象时不缓存
+    private static final Set<String> JSON_OPERATIONS = Set.of("word-details", "phrase-details", "conjunctions");
+    // 推理模型（如deepseek-r1）在答案前输出的思考过程
+    private static final Pattern THINK_BLOCK = Pattern.compile("^\\s*<think>.*?</think>", Pattern.DOTALL);
+    // 包住JSON的Markdown代码块标记
+    private static final Pattern CODE_FENCE = Pattern.compile("^```[a-zA-Z]*\\s*|\\s*```$");
 
     @Autowired
     private AIConfig aiConfig;
 
+    @Autowired
+    private CacheProperties cacheProperties;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private AIResponseStore responseStore;
+
     private final WebClient webClient;
 
+    // AI响应缓存（一级）：请求键 -> 响应内容，异步加载，到期后在后台刷新
+    // 未命中时先查持久化存储（二级），仍未命中才调用DeepSeek；加载中的相同请求共享同一个future，只调用一次
+    private AsyncLoadingCache<String, String> responseCache;
+
+    // 真正发往DeepSeek的请求数、进行中的请求数
+    private final LongAdder backendCalls = new LongAdder();
+    private final AtomicInteger inFlightCalls = new AtomicInteger();
+    // 到达时相同请求正在加载、共享其结果的请求数
+    private final LongAdder coalescedRequests = new LongAdder();
+
     public AIServiceImpl() {
         this.webClient = WebClient.builder()
                 .build();
     }
 
+    @PostConstruct
+    public void initResponseCache() {
+        // 加载失败（包括超时）的结果不会进入缓存，调用方回退到模拟数据；刷新失败时保留旧值
+        responseCache = CacheConfig.newBuilder(cacheProperties.merge(aiConfig.getResponseCache()))
+                .buildAsync(new AsyncCacheLoader<String, String>() {
+                    @Override
+                    public CompletableFuture<String> asyncLoad(String key, Executor executor) {
+                        return loadResponse(key, executor);
+                    }
+
+                    @Override
+                    public CompletableFuture<String> asyncReload(String key, String oldValue, Executor executor) {
+                        // 刷新时跳过持久化存储，重新调用DeepSeek并覆盖已保存的响应
+                        return fetchResponse(key, executor);
+                    }
+                });
+        // 导出命中率、淘汰数等缓存指标：cache.gets{cache=aiResponseCache}等
+        CaffeineCacheMetrics.monitor(meterRegistry, responseCache, AI_RESPONSE_CACHE);
+    }
+
     @Override
     public List<Word> buildHighFrequencyWordList(String text, int limit) {
         // 使用本地部署的DeepSeek生成高频词库
         try {
             String prompt = String.format("从以下文本中提取出前%d个高频单词，仅返回单词列表，用逗号分隔：\n\n%s", limit, text);
-            String response = callDeepSeekAPI(prompt);
+            String response = callDeepSeekAPI("word-list", prompt);
             
             List<Word> words = new ArrayList<>();
             String[] wordArray = response.split(",");
@@ -61,7 +134,7 @@ public class AIServiceImpl implements AIService {
             
             return words;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to build high-frequency word list, using mock words", e);
             // 如果API调用失败，返回模拟数据
             return getMockHighFrequencyWords(limit);
         }
@@ -89,7 +162,7 @@ public class AIServiceImpl implements AIService {
         // 使用本地部署的DeepSeek生成高频短语库
         try {
             String prompt = String.format("从以下文本中提取出前%d个高频短语（2-3个词），仅返回短语列表，用逗号分隔：\n\n%s", limit, text);
-            String response = callDeepSeekAPI(prompt);
+            String response = callDeepSeekAPI("phrase-list", prompt);
             
             List<Phrase> phrases = new ArrayList<>();
             String[] phraseArray = response.split(",");
@@ -109,7 +182,7 @@ public class AIServiceImpl implements AIService {
             
             return phrases;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to build high-frequency phrase list, using mock phrases", e);
             // 如果API调用失败，返回模拟数据
             return getMockHighFrequencyPhrases(limit);
         }
@@ -155,10 +228,16 @@ public class AIServiceImpl implements AIService {
         // 使用本地部署的DeepSeek分析连词
         try {
             String prompt = String.format("分析以下句子中的连词，返回JSON格式，包含word、type和function字段：\n\n%s", sentence);
-            String response = callDeepSeekAPI(prompt);
+            String response = callDeepSeekAPI("conjunctions", prompt);
             
             ObjectMapper mapper = new ObjectMapper();
-            JsonNode rootNode = mapper.readTree(response);
+            JsonNode rootNode;
+            try {
+                rootNode = mapper.readTree(response);
+            } catch (IOException e) {
+                discardResponse("conjunctions", prompt);
+                throw e;
+            }
             
             Map<String, Object> result = new HashMap<>();
             List<Map<String, String>> conjunctions = new ArrayList<>();
@@ -176,11 +255,17 @@ public class AIServiceImpl implements AIService {
             
             result.put("sentence", sentence);
             result.put("conjunctions", conjunctions);
-            result.put("analysis", rootNode.get("analysis").asText());
+            JsonNode analysis = rootNode.get("analysis");
+            if (analysis == null) {
+                // 缺少必需字段的响应不再从缓存返回，下次重新调用
+                discardResponse("conjunctions", prompt);
+                throw new IllegalStateException("Conjunction analysis response has no 'analysis' field");
+            }
+            result.put("analysis", analysis.asText());
             
             return result;
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to analyze conjunctions, using mock analysis", e);
             // 如果API调用失败，返回模拟数据
             return getMockConjunctionAnalysis(sentence);
         }
@@ -206,75 +291,93 @@ public class AIServiceImpl implements AIService {
 
     @Override
     public String translateText(String text, String fromLang, String toLang) {
+        return translateTextAsync(text, fromLang, toLang).block();
+    }
+
+    @Override
+    public Mono<String> translateTextAsync(String text, String fromLang, String toLang) {
         // 使用本地部署的DeepSeek进行翻译
-        try {
-            String prompt = String.format("将以下文本从%s翻译成%s，仅返回翻译结果：\n\n%s", fromLang, toLang, text);
-            return callDeepSeekAPI(prompt);
-        } catch (Exception e) {
-            e.printStackTrace();
-            // 如果API调用失败，返回模拟翻译
-            return "[翻译结果] " + text;
-        }
+        String prompt = String.format("将以下文本从%s翻译成%s，仅返回翻译结果：\n\n%s", fromLang, toLang, text);
+        return callDeepSeekAPIAsync("translate", prompt)
+                .onErrorResume(e -> {
+                    log.error("Failed to translate text, using mock translation", e);
+                    // 如果API调用失败，返回模拟翻译
+                    return Mono.just("[翻译结果] " + text);
+                });
     }
 
     @Override
     public Map<String, Object> getWordDetails(String word) {
+        return getWordDetailsAsync(word).block();
+    }
+
+    @Override
+    public Mono<Map<String, Object>> getWordDetailsAsync(String word) {
         // 使用本地部署的DeepSeek获取单词详细信息
-        try {
-            String prompt = String.format("获取以下单词的详细信息，返回JSON格式，必须包含以下字段：\n" +
-                    "- word: 单词本身\n" +
-                    "- pronunciation: 发音\n" +
-                    "- meaning: 词义（数组形式，每个元素是一个词义）\n" +
-                    "- partOfSpeech: 词性\n" +
-                    "- examples: 例句数组，每个元素包含en(英文)和zh(中文翻译)\n" +
-                    "- synonyms: 同义词数组\n" +
-                    "- antonyms: 反义词数组\n" +
-                    "- derivatives: 派生词数组\n" +
-                    "- phrases: 相关短语数组，每个元素包含en(英文)和zh(中文翻译)\n\n%s", word);
-            String response = callDeepSeekAPI(prompt);
-            
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(response, new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
-        } catch (Exception e) {
-            e.printStackTrace();
-            // 如果API调用失败，返回模拟数据
-            Map<String, Object> details = new HashMap<>();
-            details.put("word", word);
-            details.put("pronunciation", "/wɜːrd/");
-            details.put("meaning", List.of("单词，字", "词的含义", "言语"));
-            details.put("partOfSpeech", "noun");
-            
-            List<Map<String, String>> examples = new ArrayList<>();
-            Map<String, String> example1 = new HashMap<>();
-            example1.put("en", "This is a common word.");
-            example1.put("zh", "这是一个常见的单词。");
-            examples.add(example1);
-            
-            Map<String, String> example2 = new HashMap<>();
-            example2.put("en", "He said a few kind words.");
-            example2.put("zh", "他说了几句友好的话。");
-            examples.add(example2);
-            
-            details.put("examples", examples);
-            details.put("synonyms", List.of("term", "expression", "vocabulary"));
-            details.put("antonyms", List.of("phrase", "sentence"));
-            details.put("derivatives", List.of("wordy", "wording", "wordless"));
-            
-            List<Map<String, String>> phrases = new ArrayList<>();
-            Map<String, String> phrase1 = new HashMap<>();
-            phrase1.put("en", "word by word");
-            phrase1.put("zh", "逐字地");
-            phrases.add(phrase1);
-            
-            Map<String, String> phrase2 = new HashMap<>();
-            phrase2.put("en", "in a word");
-            phrase2.put("zh", "总而言之");
-            phrases.add(phrase2);
-            
-            details.put("phrases", phrases);
-            
-            return details;
-        }
+        String prompt = String.format("获取以下单词的详细信息，返回JSON格式，必须包含以下字段：\n" +
+                "- word: 单词本身\n" +
+                "- pronunciation: 发音\n" +
+                "- meaning: 词义（数组形式，每个元素是一个词义）\n" +
+                "- partOfSpeech: 词性\n" +
+                "- examples: 例句数组，每个元素包含en(英文)和zh(中文翻译)\n" +
+                "- synonyms: 同义词数组\n" +
+                "- antonyms: 反义词数组\n" +
+                "- derivatives: 派生词数组\n" +
+                "- phrases: 相关短语数组，每个元素包含en(英文)和zh(中文翻译)\n\n%s", word);
+        return callDeepSeekAPIAsync("word-details", prompt)
+                .map(response -> {
+                    try {
+                        ObjectMapper mapper = new ObjectMapper();
+                        return mapper.readValue(response, new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
+                    } catch (IOException e) {
+                        discardResponse("word-details", prompt);
+                        throw Exceptions.propagate(e);
+                    }
+                })
+                .onErrorResume(e -> {
+                    log.error("Failed to get details for word '{}', using mock details", word, e);
+                    // 如果API调用失败，返回模拟数据
+                    return Mono.just(getMockWordDetails(word));
+                });
+    }
+    
+    private Map<String, Object> getMockWordDetails(String word) {
+        Map<String, Object> details = new HashMap<>();
+        details.put("word", word);
+        details.put("pronunciation", "/wɜːrd/");
+        details.put("meaning", List.of("单词，字", "词的含义", "言语"));
+        details.put("partOfSpeech", "noun");
+        
+        List<Map<String, String>> examples = new ArrayList<>();
+        Map<String, String> example1 = new HashMap<>();
+        example1.put("en", "This is a common word.");
+        example1.put("zh", "这是一个常见的单词。");
+        examples.add(example1);
+        
+        Map<String, String> example2 = new HashMap<>();
+        example2.put("en", "He said a few kind words.");
+        example2.put("zh", "他说了几句友好的话。");
+        examples.add(example2);
+        
+        details.put("examples", examples);
+        details.put("synonyms", List.of("term", "expression", "vocabulary"));
+        details.put("antonyms", List.of("phrase", "sentence"));
+        details.put("derivatives", List.of("wordy", "wording", "wordless"));
+        
+        List<Map<String, String>> phrases = new ArrayList<>();
+        Map<String, String> phrase1 = new HashMap<>();
+        phrase1.put("en", "word by word");
+        phrase1.put("zh", "逐字地");
+        phrases.add(phrase1);
+        
+        Map<String, String> phrase2 = new HashMap<>();
+        phrase2.put("en", "in a word");
+        phrase2.put("zh", "总而言之");
+        phrases.add(phrase2);
+        
+        details.put("phrases", phrases);
+        
+        return details;
     }
 
     @Override
@@ -282,12 +385,17 @@ public class AIServiceImpl implements AIService {
         // 使用本地部署的DeepSeek获取短语详细信息
         try {
             String prompt = String.format("获取以下短语的详细信息，包括meaning、usage和example字段，返回JSON格式：\n\n%s", phrase);
-            String response = callDeepSeekAPI(prompt);
+            String response = callDeepSeekAPI("phrase-details", prompt);
             
             ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(response, new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
+            try {
+                return mapper.readValue(response, new com.fasterxml.jackson.core.type.TypeReference<Map<String, Object>>() {});
+            } catch (IOException e) {
+                discardResponse("phrase-details", prompt);
+                throw e;
+            }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Failed to get details for phrase '{}', using mock details", phrase, e);
             // 如果API调用失败，返回模拟数据
             Map<String, Object> details = new HashMap<>();
             details.put("phrase", phrase);
@@ -302,7 +410,149 @@ public class AIServiceImpl implements AIService {
     /**
      * 调用DeepSeek API的通用方法
      */
-    private String callDeepSeekAPI(String prompt) throws IOException, InterruptedException, ExecutionException {
+    private String callDeepSeekAPI(String operation, String prompt) throws InterruptedException, ExecutionException {
+        // 等待异步调用的结果
+        return callDeepSeekAPIAsync(operation, prompt).toFuture().get();
+    }
+    
+    @Override
+    public Map<String, Object> getCoalescingStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("backendCalls", backendCalls.sum());
+        stats.put("coalescedRequests", coalescedRequests.sum());
+        stats.put("inFlight", inFlightCalls.get());
+        CacheStats cacheStats = responseCache.synchronous().stats();
+        stats.put("responseCacheHits", cacheStats.hitCount());
+        stats.put("responseCacheMisses", cacheStats.missCount());
+        stats.put("responseCacheSize", responseCache.synchronous().estimatedSize());
+        stats.put("responseStore", responseStore.getStats());
+        return stats;
+    }
+    
+    /**
+     * 异步调用DeepSeek API，不阻塞调用线程
+     * 先查AI响应缓存，未命中时提示词相同的并发调用（单词详情、短语详情、翻译等）共享缓存中同一个加载，只发出一次请求
+     * 按操作记录耗时（含缓存命中）：ai.request{operation, outcome}
+     */
+    private Mono<String> callDeepSeekAPIAsync(String operation, String prompt) {
+        return Mono.defer(() -> {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            // 映射函数只在本次调用发起加载时执行（在调用线程上同步执行），没有执行且结果未完成说明共享了进行中的加载
+            boolean[] started = new boolean[1];
+            CompletableFuture<String> response = responseCache.get(requestKey(operation, prompt), (key, executor) -> {
+                started[0] = true;
+                return loadResponse(key, executor);
+            });
+            if (!started[0] && !response.isDone()) {
+                coalescedRequests.increment();
+            }
+            // 取缓存结果的副本，调用方取消订阅不会取消缓存中的加载
+            return Mono.fromFuture(response.copy())
+                    .doFinally(signal -> sample.stop(meterRegistry.timer(AI_REQUEST_TIMER,
+                            "operation", operation, "outcome", outcomeOf(signal))));
+        });
+    }
+    
+    // 请求键："操作\n提示词"，操作名不含换行符
+    private static String requestKey(String operation, String prompt) {
+        return operation + '\n' + prompt;
+    }
+    
+    /**
+     * 一级缓存未命中：先查持久化存储，没有时再调用DeepSeek
+     *
+     * 持久化存储的读写可能访问磁盘，放到缓存的executor上执行，不阻塞调用responseCache.get的线程（可能是Reactor线程）
+     * 之前版本保存的无效响应视为未命中，重新调用并覆盖
+     */
+    private CompletableFuture<String> loadResponse(String key, Executor executor) {
+        int separator = key.indexOf('\n');
+        String operation = key.substring(0, separator);
+        return CompletableFuture.supplyAsync(() -> responseStore.get(operation,
+                        aiConfig.getDeepseek().getModel(), key.substring(separator + 1)), executor)
+                .thenCompose(stored -> {
+                    String response = stored != null ? cleanResponse(operation, stored) : null;
+                    return response != null
+                            ? CompletableFuture.completedFuture(response)
+                            : fetchResponse(key, executor);
+                });
+    }
+    
+    /**
+     * 调用DeepSeek，校验通过后在executor上写入持久化存储
+     * 相同请求的并发调用由responseCache合并（加载和刷新期间缓存中只有一个future），这里不再合并
+     *
+     * 校验失败时返回失败的future：Caffeine不缓存失败的结果，持久化存储也不会写入，调用方回退到模拟数据
+     */
+    private CompletableFuture<String> fetchResponse(String key, Executor executor) {
+        int separator = key.indexOf('\n');
+        String operation = key.substring(0, separator);
+        String prompt = key.substring(separator + 1);
+        String model = aiConfig.getDeepseek().getModel();
+        backendCalls.increment();
+        inFlightCalls.incrementAndGet();
+        return requestDeepSeekAPI(prompt).toFuture()
+                .whenComplete((content, error) -> inFlightCalls.decrementAndGet())
+                .thenApplyAsync(content -> {
+                    String response = cleanResponse(operation, content);
+                    if (response == null) {
+                        throw new IllegalStateException("Invalid DeepSeek response for operation '" + operation + "'");
+                    }
+                    responseStore.put(operation, model, prompt, response);
+                    return response;
+                }, executor);
+    }
+    
+    /**
+     * 去掉推理模型的思考过程和包住JSON的代码块标记，校验响应是否可以缓存
+     * @param operation 操作
+     * @param content 模型返回的内容
+     * @return 清理后的响应，为空或要求JSON的操作不是JSON对象时返回null
+     */
+    private static String cleanResponse(String operation, String content) {
+        String response = THINK_BLOCK.matcher(content).replaceFirst("").trim();
+        if (response.isEmpty() || response.startsWith("<think>")) {
+            // 空响应，或思考过程被max_tokens截断、没有答案
+            return null;
+        }
+        if (!JSON_OPERATIONS.contains(operation)) {
+            return response;
+        }
+        response = CODE_FENCE.matcher(response).replaceAll("").trim();
+        try {
+            return new ObjectMapper().readTree(response).isObject() ? response : null;
+        } catch (IOException e) {
+            // 截断的JSON或非JSON内容
+            return null;
+        }
+    }
+    
+    /**
+     * 删除校验通过但解析失败的响应（如缺少必需字段），下次相同的请求重新调用DeepSeek
+     */
+    private void discardResponse(String operation, String prompt) {
+        log.warn("Discarding unparseable AI response for operation '{}'", operation);
+        responseCache.synchronous().invalidate(requestKey(operation, prompt));
+        // 持久化存储可能访问磁盘，不在调用线程（可能是Reactor线程）上删除
+        String model = aiConfig.getDeepseek().getModel();
+        CompletableFuture.runAsync(() -> responseStore.remove(operation, model, prompt));
+    }
+    
+    // 结束信号 -> 指标标签
+    private static String outcomeOf(SignalType signal) {
+        switch (signal) {
+            case ON_COMPLETE:
+                return "success";
+            case ON_ERROR:
+                return "error";
+            default:
+                return "cancelled";
+        }
+    }
+    
+    /**
+     * 向DeepSeek API发出请求
+     */
+    private Mono<String> requestDeepSeekAPI(String prompt) {
         // 创建请求体
         Map<String, Object> requestBody = new HashMap<>();
         requestBody.put("model", aiConfig.getDeepseek().getModel());
@@ -325,21 +575,28 @@ public class AIServiceImpl implements AIService {
         // 创建ObjectMapper用于JSON处理
         ObjectMapper mapper = new ObjectMapper();
         
-        // 异步调用DeepSeek API
-        CompletableFuture<String> future = webClient.post()
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return webClient.post()
             .uri(aiConfig.getDeepseek().getApiUrl() + "/chat/completions")
             .header("Authorization", "Bearer " + aiConfig.getDeepseek().getApiKey())
             .contentType(MediaType.APPLICATION_JSON)
             .bodyValue(requestBody)
             .retrieve()
             .bodyToMono(String.class)
-            .toFuture();
-        
-        // 等待结果
-        String response = future.get();
-        
-        // 解析响应
-        JsonNode rootNode = mapper.readTree(response);
-        return rootNode.path("choices").get(0).path("message").path("content").asText();
+            .map(response -> {
+                // 解析响应
+                try {
+                    JsonNode content = mapper.readTree(response).path("choices").path(0).path("message").path("content");
+                    if (!content.isTextual()) {
+                        // 以200返回的错误信息等，不是对话补全的响应
+                        throw new IllegalStateException("DeepSeek response has no message content");
+                    }
+                    return content.asText();
+                } catch (IOException e) {
+                    throw Exceptions.propagate(e);
+                }
+            })
+            // 真正发到DeepSeek的请求耗时：ai.backend.request{outcome}
+            .doFinally(signal -> sample.stop(meterRegistry.timer(AI_BACKEND_TIMER, "outcome", outcomeOf(signal))));
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,403 @@
+package com.hzlgou.service.impl;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.hzlgou.config.CacheProperties;
+import com.hzlgou.model.Word;
+import com.hzlgou.repository.WordRepository;
+import com.hzlgou.service.DictionaryCacheService;
+import com.hzlgou.util.BloomFilter;
+import com.hzlgou.util.LookupKey;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 词典缓存服务实现类
+ *
+ * 直接通过CacheManager读写缓存，不依赖@Cacheable代理，同一个类内部调用也能命中缓存。
+ * 缓存未命中的单词先经过布隆过滤器：过滤器判定不存在的直接返回，不访问数据库；
+ * 过滤器误判而数据库中确实不存在的单词记入短期负缓存，短时间内重复查询也不再访问数据库。
+ * 查询数据库期间单词被新增或修改（evictWord）时，查询结果已过时，不写入单词缓存和负缓存。
+ */
+@Service
+public class DictionaryCacheServiceImpl implements DictionaryCacheService {
+    private static final Logger log = LoggerFactory.getLogger(DictionaryCacheServiceImpl.class);
+    
+    // 单词实体缓存：查找键（LookupKey） -> Word
+    private static final String WORD_CACHE = "wordCache";
+    // 单词/短语信息缓存："w:单词" / "p:短语" -> 信息
+    private static final String WORD_PHRASE_CACHE = "wordPhraseCache";
+    
+    // 负缓存：条目存活时间和最大条目数
+    private static final long NEGATIVE_CACHE_TTL_SECONDS = 60;
+    private static final long NEGATIVE_CACHE_MAX_SIZE = 10000;
+    // 布隆过滤器为之后新增的单词预留的容量
+    private static final int FILTER_HEADROOM = 10000;
+    // 淘汰代数的分段数（2的幂），查找键按哈希分段
+    private static final int GENERATION_STRIPES = 1024;
+    
+    // 指标名：单词缓存未命中后的查询去向；数据库查询耗时与其他处理阶段共用一个计时器
+    private static final String WORD_LOOKUP_COUNTER = "dictionary.word.lookups";
+    private static final String STAGE_TIMER = "wordphrase.stage";
+    
+    // 快照文件格式：魔数、版本、写入时间、键数、各键（modified UTF-8）
+    private static final int SNAPSHOT_MAGIC = 0x57504353;
+    private static final short SNAPSHOT_VERSION = 1;
+    
+    @Autowired
+    private CacheManager cacheManager;
+    
+    @Autowired
+    private WordRepository wordRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private CacheProperties cacheProperties;
+    
+    // 命中/未命中计数（按缓存名）
+    private final Map<String, LongAdder> hits = new HashMap<>();
+    private final Map<String, LongAdder> misses = new HashMap<>();
+    
+    // 单词布隆过滤器（查找键），首次构建完成前为null，此时所有未命中的查询都访问数据库
+    private volatile BloomFilter wordFilter;
+    // 重建期间新增的单词，重建完成时补入新过滤器；不在重建时为null
+    private Set<String> pendingWords;
+    private final Object filterLock = new Object();
+    
+    // 近期确认不存在的单词（查找键）
+    private final com.github.benmanes.caffeine.cache.Cache<String, Boolean> missingWords = Caffeine.newBuilder()
+            .expireAfterWrite(NEGATIVE_CACHE_TTL_SECONDS, TimeUnit.SECONDS)
+            .maximumSize(NEGATIVE_CACHE_MAX_SIZE)
+            .build();
+    
+    // 各分段的淘汰代数：evictWord淘汰该段的单词时加一，查询数据库前后代数不同说明结果可能已过时
+    private final AtomicLongArray evictionGenerations = new AtomicLongArray(GENERATION_STRIPES);
+    
+    // 被布隆过滤器、负缓存拦截的查询数，以及实际访问数据库的查询数
+    private final LongAdder filterRejections = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+    
+    public DictionaryCacheServiceImpl() {
+        for (String name : new String[] {WORD_CACHE, WORD_PHRASE_CACHE}) {
+            hits.put(name, new LongAdder());
+            misses.put(name, new LongAdder());
+        }
+    }
+    
+    @PostConstruct
+    public void registerMetrics() {
+        // 单词缓存未命中后的去向：被布隆过滤器拦截、命中负缓存、查询数据库
+        FunctionCounter.builder(WORD_LOOKUP_COUNTER, filterRejections, LongAdder::sum)
+                .tag("result", "filtered").register(meterRegistry);
+        FunctionCounter.builder(WORD_LOOKUP_COUNTER, negativeHits, LongAdder::sum)
+                .tag("result", "negative-cache").register(meterRegistry);
+        FunctionCounter.builder(WORD_LOOKUP_COUNTER, databaseLookups, LongAdder::sum)
+                .tag("result", "database").register(meterRegistry);
+    }
+    
+    @Override
+    public Word findWord(String word) {
+        String key = LookupKey.normalize(word);
+        // 先于数据库查询读取代数，之后的淘汰都会使代数变化
+        long generation = evictionGenerations.get(stripe(key));
+        Cache cache = cacheManager.getCache(WORD_CACHE);
+        Cache.ValueWrapper cached = cache.get(key);
+        if (cached != null) {
+            hits.get(WORD_CACHE).increment();
+            return (Word) cached.get();
+        }
+        misses.get(WORD_CACHE).increment();
+        
+        BloomFilter filter = wordFilter;
+        if (filter != null && !filter.mightContain(key)) {
+            filterRejections.increment();
+            return null;
+        }
+        if (missingWords.getIfPresent(key) != null) {
+            negativeHits.increment();
+            return null;
+        }
+        
+        // 按规范化的查找键一次索引查询，大小写和撇号写法不同的单词都能命中
+        databaseLookups.increment();
+        Optional<Word> optionalWord = meterRegistry.timer(STAGE_TIMER, "stage", "db-word")
+                .record(() -> wordRepository.findByLookupKey(key));
+        if (optionalWord.isPresent()) {
+            putIfNotEvicted(nativeCache(cache), key, optionalWord.get(), generation);
+        } else {
+            // 不存在的单词只进入短期负缓存，新增单词时由evictWord移除
+            putIfNotEvicted(missingWords, key, Boolean.TRUE, generation);
+        }
+        return optionalWord.orElse(null);
+    }
+    
+    /**
+     * 代数未变时才写入缓存
+     *
+     * 在键的compute中检查代数：evictWord先增加代数再移除缓存条目，两者都要获取同一个键的锁，
+     * 写入要么发生在移除之前（随后被移除），要么能看到新的代数（放弃写入），淘汰总是生效。
+     */
+    private <V> void putIfNotEvicted(com.github.benmanes.caffeine.cache.Cache<String, V> target, String key, V value,
+                                     long generation) {
+        target.asMap().compute(key, (k, current) ->
+                evictionGenerations.get(stripe(k)) == generation ? value : current);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static com.github.benmanes.caffeine.cache.Cache<String, Object> nativeCache(Cache cache) {
+        return (com.github.benmanes.caffeine.cache.Cache<String, Object>) cache.getNativeCache();
+    }
+    
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+    
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getInfo(String key) {
+        Cache.ValueWrapper cached = cacheManager.getCache(WORD_PHRASE_CACHE).get(key);
+        if (cached == null) {
+            misses.get(WORD_PHRASE_CACHE).increment();
+            return null;
+        }
+        hits.get(WORD_PHRASE_CACHE).increment();
+        return (Map<String, Object>) cached.get();
+    }
+    
+    @Override
+    public void putInfo(String key, Map<String, Object> info) {
+        cacheManager.getCache(WORD_PHRASE_CACHE).put(key, info);
+    }
+    
+    @Override
+    public void evictWord(String word) {
+        if (word == null) {
+            return;
+        }
+        String key = LookupKey.normalize(word);
+        synchronized (filterLock) {
+            BloomFilter filter = wordFilter;
+            if (filter != null) {
+                filter.put(key);
+            }
+            if (pendingWords != null) {
+                pendingWords.add(key);
+            }
+        }
+        // 先增加代数再移除，进行中的查询不会再写回旧结果
+        evictionGenerations.incrementAndGet(stripe(key));
+        missingWords.invalidate(key);
+        cacheManager.getCache(WORD_CACHE).evict(key);
+        cacheManager.getCache(WORD_PHRASE_CACHE).evict(DictionaryCacheService.wordInfoKey(word));
+    }
+    
+    @Override
+    public void beginWordFilterRebuild() {
+        synchronized (filterLock) {
+            pendingWords = new HashSet<>();
+        }
+        // 重建前通常刚导入过数据（启动时导入期间也可以查询），导入前记下的不存在条目已不可信
+        invalidateMissingWords();
+    }
+    
+    @Override
+    public void finishWordFilterRebuild(Collection<String> words) {
+        BloomFilter filter = new BloomFilter(words.size() + FILTER_HEADROOM, BloomFilter.DEFAULT_FPP);
+        for (String word : words) {
+            filter.put(LookupKey.normalize(word));
+        }
+        synchronized (filterLock) {
+            if (pendingWords != null) {
+                pendingWords.forEach(filter::put);
+                pendingWords = null;
+            }
+            wordFilter = filter;
+        }
+        // 负缓存中的条目可能已过时，随过滤器一起重置
+        invalidateMissingWords();
+    }
+    
+    // 清空负缓存，并使进行中的查询不再写入
+    private void invalidateMissingWords() {
+        for (int i = 0; i < GENERATION_STRIPES; i++) {
+            evictionGenerations.incrementAndGet(i);
+        }
+        missingWords.invalidateAll();
+    }
+    
+    @Override
+    public void evictPhrase(List<String> phraseTokens) {
+        if (phraseTokens == null || phraseTokens.isEmpty()) {
+            return;
+        }
+        cacheManager.getCache(WORD_PHRASE_CACHE).evict(DictionaryCacheService.phraseInfoKey(phraseTokens));
+    }
+    
+    @Override
+    @PreDestroy
+    public void saveSnapshot() {
+        CacheProperties.Snapshot config = cacheProperties.getSnapshot();
+        if (!config.isEnabled()) {
+            return;
+        }
+        // 单词和短语信息缓存的键都归一为词元序列（以空格连接），按热度交替合并并去重
+        Set<String> keys = new LinkedHashSet<>();
+        List<String> words = hottestKeys(WORD_CACHE, config.getMaxEntries());
+        List<String> infos = hottestKeys(WORD_PHRASE_CACHE, config.getMaxEntries());
+        for (int i = 0; i < Math.max(words.size(), infos.size()); i++) {
+            if (i < infos.size()) {
+                keys.add(infos.get(i).substring(2));
+            }
+            if (i < words.size()) {
+                keys.add(words.get(i));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        
+        // 先写临时文件再替换，关闭过程中被中断也不会留下损坏的快照
+        File file = new File(config.getPath()).getAbsoluteFile();
+        File temp = new File(file.getPath() + ".tmp");
+        try {
+            File parent = file.getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                throw new IOException("Could not create directory " + parent);
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeShort(SNAPSHOT_VERSION);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(keys.size());
+                for (String key : keys) {
+                    out.writeUTF(key);
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved cache snapshot with {} keys to {}", keys.size(), file);
+        } catch (IOException e) {
+            log.warn("Could not save cache snapshot to {}", file, e);
+        }
+    }
+    
+    @Override
+    public List<List<String>> loadSnapshot() {
+        CacheProperties.Snapshot config = cacheProperties.getSnapshot();
+        File file = new File(config.getPath()).getAbsoluteFile();
+        if (!config.isEnabled() || !file.isFile()) {
+            return Collections.emptyList();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readShort() != SNAPSHOT_VERSION) {
+                log.warn("Ignoring cache snapshot {} with unknown format", file);
+                return Collections.emptyList();
+            }
+            long savedAt = in.readLong();
+            int count = in.readInt();
+            List<List<String>> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(Arrays.asList(in.readUTF().split(" ")));
+            }
+            log.info("Loaded cache snapshot with {} keys saved at {}", count, new java.util.Date(savedAt));
+            return entries;
+        } catch (IOException e) {
+            log.warn("Could not read cache snapshot {}", file, e);
+            return Collections.emptyList();
+        }
+    }
+    
+    // 按热度从高到低取缓存的键；没有容量上限的缓存按任意顺序取
+    private List<String> hottestKeys(String cacheName, int limit) {
+        Object nativeCache = cacheManager.getCache(cacheName).getNativeCache();
+        if (!(nativeCache instanceof com.github.benmanes.caffeine.cache.Cache)) {
+            return Collections.emptyList();
+        }
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine = (com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache;
+        Collection<?> keys = caffeine.policy().eviction().isPresent()
+                ? caffeine.policy().eviction().get().hottest(limit).keySet()
+                : caffeine.asMap().keySet();
+        List<String> result = new ArrayList<>();
+        for (Object key : keys) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (key instanceof String) {
+                result.add((String) key);
+            }
+        }
+        return result;
+    }
+    
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (String name : new String[] {WORD_CACHE, WORD_PHRASE_CACHE}) {
+            long hitCount = hits.get(name).sum();
+            long missCount = misses.get(name).sum();
+            Map<String, Object> cacheStats = new LinkedHashMap<>();
+            cacheStats.put("hits", hitCount);
+            cacheStats.put("misses", missCount);
+            cacheStats.put("hitRate", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+            
+            // Caffeine自身的统计：条目数和淘汰数
+            Object nativeCache = cacheManager.getCache(name).getNativeCache();
+            if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache) {
+                com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine = (com.github.benmanes.caffeine.cache.Cache<?, ?>) nativeCache;
+                CacheStats caffeineStats = caffeine.stats();
+                cacheStats.put("size", caffeine.estimatedSize());
+                cacheStats.put("evictions", caffeineStats.evictionCount());
+            }
+            stats.put(name, cacheStats);
+        }
+        
+        Map<String, Object> filterStats = new LinkedHashMap<>();
+        BloomFilter filter = wordFilter;
+        filterStats.put("ready", filter != null);
+        filterStats.put("bits", filter != null ? filter.getBitCount() : 0);
+        filterStats.put("hashFunctions", filter != null ? filter.getHashCount() : 0);
+        filterStats.put("filterRejections", filterRejections.sum());
+        filterStats.put("negativeHits", negativeHits.sum());
+        filterStats.put("negativeCacheSize", missingWords.estimatedSize());
+        filterStats.put("databaseLookups", databaseLookups.sum());
+        stats.put("wordFilter", filterStats);
+        return stats;
+    }
+}
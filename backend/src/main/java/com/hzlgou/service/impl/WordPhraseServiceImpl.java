@@ -1,28 +1,55 @@
 package com.hzlgou.service.impl;
 
+import com.hzlgou.config.AIConfig;
+import com.hzlgou.config.DictionaryProperties;
+import com.hzlgou.model.ImportState;
 import com.hzlgou.model.Phrase;
 import com.hzlgou.model.Word;
 import com.hzlgou.model.WordBook;
+import com.hzlgou.repository.ImportStateRepository;
 import com.hzlgou.repository.PhraseRepository;
 import com.hzlgou.repository.WordBookRepository;
 import com.hzlgou.repository.WordRepository;
 import com.hzlgou.service.AIService;
+import com.hzlgou.service.DictionaryCacheService;
 import com.hzlgou.service.WordPhraseService;
 import com.hzlgou.util.CSVUtil;
+import com.hzlgou.util.DictionaryImage;
+import com.hzlgou.util.FuzzyIndex;
+import com.hzlgou.util.LookupKey;
+import com.hzlgou.util.PhraseMatcher;
+import com.hzlgou.util.SubstringIndex;
+import com.hzlgou.util.Tokenizer;
 import com.hzlgou.util.Trie;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import javax.annotation.PostConstruct;
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.regex.Pattern;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -41,127 +68,295 @@ public class WordPhraseServiceImpl implements WordPhraseService {
     @Autowired
     private WordBookRepository wordBookRepository;
     
+    @Autowired
+    private ImportStateRepository importStateRepository;
+    
     @Autowired
     private ResourceLoader resourceLoader;
     
+    // 词库导入在一个事务中完成
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private AIConfig aiConfig;
+    
+    @Autowired
+    private DictionaryProperties dictionaryProperties;
+    
+    @Autowired
+    private DictionaryCacheService dictionaryCacheService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     // 缓存已通过Spring Cache + Caffeine实现，不再使用手动HashMap缓存
     
-    // 单词前缀树，用于快速搜索
-    private Trie wordTrie;
+    // 以下索引支持并发读写（读无锁），初始化时先完整构建再整体发布
+    
+    // 单词前缀树、子串索引和模糊索引，三者一次发布，读线程拿到的总是同一批索引；构建完成前为null
+    private volatile WordIndexes wordIndexes;
     
     // 短语前缀树，用于快速搜索
-    private Trie phraseTrie;
+    private volatile Trie phraseTrie;
+    
+    // 短语匹配器（词元级Aho-Corasick），用于在文章中识别短语
+    private volatile PhraseMatcher phraseMatcher = new PhraseMatcher();
+    
+    // 后台是否正在合并短语匹配器的增量部分（由indexLock保护）
+    private boolean phraseMatcherCompacting;
+    
+    // 索引构建期间保存的单词和短语，构建完成时补入新索引；不在构建时为null
+    private List<Word> pendingIndexWords;
+    private List<Phrase> pendingIndexPhrases;
+    private final Object indexLock = new Object();
+    
+    // 批量查询时每条SQL的最大ID数
+    private static final int QUERY_BATCH_SIZE = 1000;
+    
+    // CSV导入时每次批量写入的行数
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    
+    // 短语匹配器增量部分达到该数量时在后台合并进基础自动机
+    private static final int PHRASE_MATCHER_COMPACT_THRESHOLD = 256;
     
-    // 分词正则表达式
-    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\w+|[.,!?;:'\"()\\[\\]{}\\-]");
+    // 单词本每页最多条数
+    private static final int MAX_WORD_BOOK_PAGE_SIZE = 200;
+    
+    // 导入状态表中词库数据源的键
+    private static final String DICTIONARY_SOURCE = "dictionary";
+    
+    // 后台初始化的当前阶段、已完成阶段的耗时（毫秒）和失败原因
+    private volatile StartupPhase startupPhase = StartupPhase.PENDING;
+    private final Map<String, Long> phaseMillis = new LinkedHashMap<>();
+    private long phaseStartNanos;
+    private volatile String startupError;
+    
+    // 各处理阶段耗时的指标名，按stage标签区分（分词、短语匹配、索引搜索、数据库查询、AI解析）
+    private static final String STAGE_TIMER = "wordphrase.stage";
     
     @Override
     public List<String> tokenize(String text) {
-        // 移除多余空格和换行
-        text = text.replaceAll("\\s+", " ").trim();
-        // 按空格分割，同时保留标点符号
-        List<String> tokens = new ArrayList<>();
-        var matcher = TOKEN_PATTERN.matcher(text);
-        while (matcher.find()) {
-            tokens.add(matcher.group());
-        }
-        return tokens;
+        // 单遍扫描分词，同时保留标点符号
+        return timed("tokenize", () -> Tokenizer.tokenize(text));
+    }
+    
+    @Override
+    public Tokenizer.TokenSpans tokenizeSpans(String text) {
+        return timed("tokenize", () -> Tokenizer.scan(text));
+    }
+    
+    // 记录一个处理阶段的耗时
+    private <T> T timed(String stage, Supplier<T> work) {
+        return meterRegistry.timer(STAGE_TIMER, "stage", stage).record(work);
     }
     
     @Override
-    @Cacheable(value = "wordPhraseCache", key = "#tokens.toString() + '_' + #index", unless = "#result == null")
     public Map<String, Object> getPhraseOrWordInfo(List<String> tokens, int index) {
-        // 1. 尝试匹配最长短语（3-gram, 2-gram）
-        String phrase3Gram = getNgram(tokens, index, 3);
-        if (phrase3Gram != null) {
-            Phrase phrase = getPhraseFromCache(phrase3Gram);
-            if (phrase != null) {
-                return buildPhraseResponse(phrase);
+        return getPhraseOrWordInfos(tokens, Collections.singletonList(index)).get(0);
+    }
+    
+    @Override
+    public List<Map<String, Object>> getPhraseOrWordInfos(List<String> tokens, List<Integer> indices) {
+        // 1. 一次扫描求出每个位置被覆盖的最长短语
+        PhraseMatcher.Match[] longest = timed("phrase-match", () -> phraseMatcher.longestCovering(tokens));
+        
+        // 2. 每个位置按规范化的n-gram确定缓存键：被短语覆盖的位置用短语，否则用单词
+        Map<String, Map<String, Object>> resolved = new HashMap<>();
+        Map<String, Long> missingPhrases = new LinkedHashMap<>();
+        String[] keys = new String[indices.size()];
+        for (int i = 0; i < indices.size(); i++) {
+            int index = indices.get(i);
+            if (index < 0 || index >= tokens.size() || longest[index] == null) {
+                continue;
+            }
+            keys[i] = DictionaryCacheService.phraseInfoKey(tokens.subList(longest[index].getStart(), longest[index].getEnd()));
+            if (!resolved.containsKey(keys[i]) && !missingPhrases.containsKey(keys[i])
+                    && !lookupCache(keys[i], resolved)) {
+                missingPhrases.put(keys[i], longest[index].getPhraseId());
             }
         }
         
-        String phrase2Gram = getNgram(tokens, index, 2);
-        if (phrase2Gram != null) {
-            Phrase phrase = getPhraseFromCache(phrase2Gram);
+        // 3. 批量查询未命中缓存的短语
+        Map<Long, Phrase> phrasesById = findPhrasesByIds(new ArrayList<>(missingPhrases.values()));
+        for (Map.Entry<String, Long> entry : missingPhrases.entrySet()) {
+            Phrase phrase = phrasesById.get(entry.getValue());
             if (phrase != null) {
-                return buildPhraseResponse(phrase);
+                Map<String, Object> response = buildPhraseResponse(phrase);
+                dictionaryCacheService.putInfo(entry.getKey(), response);
+                resolved.put(entry.getKey(), response);
             }
         }
         
-        // 2. 匹配单词
-        String wordStr = tokens.get(index);
-        Word word = getWordFromCache(wordStr);
-        if (word != null) {
-            return buildWordResponse(word);
+        // 4. 其余位置（包括短语已不存在的位置）按单词处理
+        boolean[] isPhrase = new boolean[indices.size()];
+        Map<String, String> missingWords = new LinkedHashMap<>();
+        for (int i = 0; i < indices.size(); i++) {
+            int index = indices.get(i);
+            if (index < 0 || index >= tokens.size()) {
+                continue;
+            }
+            if (keys[i] != null && resolved.get(keys[i]) != null) {
+                isPhrase[i] = true;
+                continue;
+            }
+            String token = tokens.get(index);
+            keys[i] = DictionaryCacheService.wordInfoKey(token);
+            if (!resolved.containsKey(keys[i]) && !missingWords.containsKey(keys[i])
+                    && !lookupCache(keys[i], resolved)) {
+                missingWords.put(keys[i], token);
+            }
         }
         
-        // 3. 如果数据库中没有，调用AI获取单词信息并保存到数据库
-        try {
-            Map<String, Object> aiDetails = aiService.getWordDetails(wordStr);
-            Word newWord = new Word();
-            newWord.setWord(wordStr);
-            newWord.setLemma(aiDetails.getOrDefault("word", wordStr).toString());
-            newWord.setPronunciation(aiDetails.getOrDefault("pronunciation", "/").toString());
-            
-            // 处理派生词（synonyms）
-            List<String> synonyms = new ArrayList<>();
-            if (aiDetails.containsKey("synonyms")) {
-                Object synonymsObj = aiDetails.get("synonyms");
-                if (synonymsObj instanceof List) {
-                    // 安全地转换List，确保所有元素都是String类型
-                    List<?> list = (List<?>) synonymsObj;
-                    for (Object item : list) {
-                        if (item instanceof String) {
-                            synonyms.add((String) item);
-                        }
-                    }
-                } else {
-                    synonyms.add(synonymsObj.toString());
-                }
+        // 5. 查询未命中缓存的单词，数据库中也没有的单词并发调用AI获取
+        List<String> unknownTokens = new ArrayList<>();
+        for (Map.Entry<String, String> entry : missingWords.entrySet()) {
+            String token = entry.getValue();
+            Word word = Tokenizer.isLetters(token) ? dictionaryCacheService.findWord(token) : null;
+            if (word != null) {
+                Map<String, Object> response = buildWordResponse(word);
+                dictionaryCacheService.putInfo(entry.getKey(), response);
+                resolved.put(entry.getKey(), response);
+            } else if (Tokenizer.isLetters(token)) {
+                unknownTokens.add(token);
+            } else {
+                // 标点和数字不调用AI
+                resolved.put(entry.getKey(), buildDefaultResponse(token));
             }
-            newWord.setDerivation(String.join(",", synonyms));
-            
-            // 设置记忆口诀
-            newWord.setTip("AI生成: " + aiDetails.getOrDefault("meaning", "").toString());
-            
-            // 保存到数据库和缓存
-            Word savedWord = saveWord(newWord);
-            return buildWordResponse(savedWord);
-        } catch (Exception e) {
-            e.printStackTrace();
-            // 如果AI调用失败，返回默认信息
-            return buildDefaultResponse(wordStr);
         }
+        for (Map.Entry<String, Map<String, Object>> entry : resolveUnknownWords(unknownTokens).entrySet()) {
+            String key = DictionaryCacheService.wordInfoKey(entry.getKey());
+            if (!"unknown".equals(entry.getValue().get("type"))) {
+                dictionaryCacheService.putInfo(key, entry.getValue());
+            }
+            resolved.put(key, entry.getValue());
+        }
+        
+        // 6. 按请求顺序组装结果，缓存中的对象只读，返回副本
+        List<Map<String, Object>> results = new ArrayList<>(indices.size());
+        for (int i = 0; i < indices.size(); i++) {
+            int index = indices.get(i);
+            Map<String, Object> response = keys[i] != null
+                    ? new HashMap<>(resolved.get(keys[i]))
+                    : buildDefaultResponse("");
+            response.put("index", index);
+            if (isPhrase[i]) {
+                response.put("start", longest[index].getStart());
+                response.put("end", longest[index].getEnd());
+            }
+            results.add(response);
+        }
+        return results;
+    }
+    
+    // 从缓存读取，命中时放入resolved
+    private boolean lookupCache(String key, Map<String, Map<String, Object>> resolved) {
+        Map<String, Object> cached = dictionaryCacheService.getInfo(key);
+        if (cached == null) {
+            return false;
+        }
+        resolved.put(key, cached);
+        return true;
     }
     
     @Override
     public Word saveWord(Word word) {
         Word saved = wordRepository.save(word);
-        // 更新Trie树
-        if (wordTrie != null) {
-            wordTrie.insert(saved.getWord(), saved.getId());
+        dictionaryCacheService.evictWord(saved.getWord());
+        synchronized (indexLock) {
+            // 索引正在构建时记下，构建完成时补入新索引
+            if (pendingIndexWords != null) {
+                pendingIndexWords.add(saved);
+            }
+            // 更新Trie树、子串索引和模糊索引
+            WordIndexes indexes = wordIndexes;
+            if (indexes != null) {
+                indexes.insert(saved);
+            }
         }
         return saved;
     }
     
+    /**
+     * 保存AI生成的单词，单词已存在时返回已有记录
+     *
+     * 多个请求可能同时为同一个新单词调用AI，先保存的请求生效，
+     * 其余请求触发唯一约束冲突后改为读取已保存的记录，而不是报错。
+     */
+    private Word saveWordIfAbsent(Word word) {
+        Word existing = dictionaryCacheService.findWord(word.getWord());
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            return saveWord(word);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Word '{}' was saved concurrently, using the existing record", word.getWord());
+            return wordRepository.findByLookupKey(LookupKey.normalize(word.getWord())).orElseThrow(() -> e);
+        }
+    }
+    
     @Override
     public Phrase savePhrase(Phrase phrase) {
         Phrase saved = phraseRepository.save(phrase);
-        // 更新Trie树
-        if (phraseTrie != null) {
-            phraseTrie.insert(saved.getPhrase(), saved.getId());
+        dictionaryCacheService.evictPhrase(tokenize(saved.getPhrase()));
+        synchronized (indexLock) {
+            // 索引正在构建时记下，构建完成时补入新索引
+            if (pendingIndexPhrases != null) {
+                pendingIndexPhrases.add(saved);
+            }
+            // 更新Trie树
+            if (phraseTrie != null) {
+                phraseTrie.insert(saved.getPhrase(), saved.getId());
+                // 更新短语匹配器（初始化完成前由initTrie统一构建）
+                addToPhraseMatcher(saved);
+            }
         }
         return saved;
     }
     
+    // 新短语只加入匹配器的增量部分再整体替换（调用方持有indexLock）；增量积累够多时在后台合并
+    private void addToPhraseMatcher(Phrase phrase) {
+        phraseMatcher = phraseMatcher.plus(phrase.getId(), tokenize(phrase.getPhrase()));
+        if (phraseMatcher.pendingSize() >= PHRASE_MATCHER_COMPACT_THRESHOLD && !phraseMatcherCompacting) {
+            phraseMatcherCompacting = true;
+            PhraseMatcher snapshot = phraseMatcher;
+            Schedulers.boundedElastic().schedule(() -> compactPhraseMatcher(snapshot));
+        }
+    }
+    
+    // 在锁外完整重建匹配器，替换时补上重建期间新增的短语
+    private void compactPhraseMatcher(PhraseMatcher snapshot) {
+        try {
+            long startTime = System.currentTimeMillis();
+            PhraseMatcher compacted = snapshot.compact();
+            synchronized (indexLock) {
+                phraseMatcher = phraseMatcher.rebase(snapshot, compacted);
+            }
+            log.info("Compacted phrase matcher ({} phrases) in {} ms",
+                    compacted.size(), System.currentTimeMillis() - startTime);
+        } catch (RuntimeException e) {
+            log.error("Failed to compact phrase matcher", e);
+        } finally {
+            synchronized (indexLock) {
+                phraseMatcherCompacting = false;
+            }
+        }
+    }
+    
     @Override
-    @Cacheable(value = "wordCache", key = "#word", unless = "#result == null")
     public Optional<Word> findByWord(String word) {
-        return wordRepository.findByWord(word);
+        // 返回的实体会被调用方修改后保存，直接查询数据库而不是返回缓存中的共享对象
+        return wordRepository.findByLookupKey(LookupKey.normalize(word));
     }
 
     @Override
     public List<Map<String, Object>> searchWords(String keyword, String searchType) {
+        return searchWords(keyword, searchType, 0);
+    }
+    
+    @Override
+    public List<Map<String, Object>> searchWords(String keyword, String searchType, int limit) {
         if (keyword == null || keyword.trim().isEmpty()) {
             return Collections.emptyList();
         }
@@ -169,24 +364,33 @@ public class WordPhraseServiceImpl implements WordPhraseService {
         String lowercaseKeyword = keyword.toLowerCase();
         List<Map<String, Object>> searchResults;
         
+        // 只读取一次，整个搜索使用同一批索引
+        WordIndexes indexes = wordIndexes;
+        // 索引构建完成前只能查数据库，各种搜索都退化为精确查找
+        if (indexes == null) {
+            searchType = "exact";
+        }
+        
         // 根据搜索类型使用不同的搜索策略
         switch (searchType) {
             case "prefix":
-                searchResults = wordTrie.searchByPrefix(lowercaseKeyword);
+                searchResults = timed("search-prefix", () -> searchPrefix(indexes.trie, lowercaseKeyword, limit));
                 break;
             case "substring":
-                searchResults = wordTrie.searchBySubstring(lowercaseKeyword);
+                searchResults = timed("search-substring", () -> limit > 0
+                        ? indexes.substringIndex.search(lowercaseKeyword, limit)
+                        : indexes.substringIndex.search(lowercaseKeyword));
+                break;
+            case "fuzzy":
+                // 短词只容忍1处拼写错误，否则候选过多且意义不大
+                int maxDistance = lowercaseKeyword.length() <= 4 ? 1 : FuzzyIndex.MAX_DISTANCE;
+                searchResults = timed("search-fuzzy", () ->
+                        indexes.fuzzyIndex.search(lowercaseKeyword, maxDistance, limit > 0 ? limit : Integer.MAX_VALUE));
                 break;
             case "exact":
-                // 首先尝试从数据库中查找精确匹配的单词
-                Optional<Word> wordOptional = wordRepository.findByWord(keyword);
-                if (!wordOptional.isPresent()) {
-                    // 如果没有找到，尝试小写查找
-                    wordOptional = wordRepository.findByWord(lowercaseKeyword);
-                }
-                
-                if (wordOptional.isPresent()) {
-                    Word word = wordOptional.get();
+                // 精确匹配的单词（先查缓存，未命中时按小写和原文查数据库）
+                Word word = dictionaryCacheService.findWord(keyword);
+                if (word != null) {
                     searchResults = new ArrayList<>();
                     Map<String, Object> exactMatch = new HashMap<>();
                     exactMatch.put("word", word.getWord());
@@ -198,52 +402,72 @@ public class WordPhraseServiceImpl implements WordPhraseService {
                 break;
             default:
                 // 默认使用前缀搜索
-                searchResults = wordTrie.searchByPrefix(lowercaseKeyword);
+                searchResults = timed("search-prefix", () -> searchPrefix(indexes.trie, lowercaseKeyword, limit));
         }
         
         // 丰富搜索结果信息
         return enrichWordSearchResults(searchResults);
     }
     
-    // 从缓存获取单词
-    @Cacheable(value = "wordCache", key = "#word.toLowerCase()", unless = "#result == null")
-    private Word getWordFromCache(String word) {
-        // 先从数据库查找
-        Optional<Word> optionalWord = wordRepository.findByWord(word);
-        if (optionalWord.isPresent()) {
-            return optionalWord.get();
+    /**
+     * 前缀搜索：指定了limit时按词频取Top-K，提前结束遍历
+     */
+    private static List<Map<String, Object>> searchPrefix(Trie trie, String prefix, int limit) {
+        if (limit > 0) {
+            return trie.searchTopKByPrefix(prefix, limit);
         }
-        
-        // 尝试小写查找
-        optionalWord = wordRepository.findByWord(word.toLowerCase());
-        return optionalWord.orElse(null);
+        return trie.searchByPrefix(prefix);
     }
     
-    // 从缓存获取短语
-    @Cacheable(value = "phraseCache", key = "#phrase.toLowerCase()", unless = "#result == null")
-    private Phrase getPhraseFromCache(String phrase) {
-        // 先从数据库查找
-        Optional<Phrase> optionalPhrase = phraseRepository.findByPhrase(phrase);
-        if (optionalPhrase.isPresent()) {
-            return optionalPhrase.get();
-        }
-        
-        // 尝试小写查找
-        optionalPhrase = phraseRepository.findByPhrase(phrase.toLowerCase());
-        return optionalPhrase.orElse(null);
+    // 单词的词频分数，未设置时为0
+    private static int frequencyOf(Word word) {
+        return word.getFrequency() != null ? word.getFrequency() : 0;
+    }
+    
+    /**
+     * 应用启动完成后在后台初始化词库，Web服务器不必等待导入和建索引；
+     * 就绪状态由健康检查（/actuator/health/readiness）反映
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDatabaseInit() {
+        Thread init = new Thread(() -> {
+            try {
+                initDatabase();
+            } catch (RuntimeException e) {
+                log.error("Dictionary initialization failed", e);
+            }
+        }, "dictionary-init");
+        init.setDaemon(true);
+        init.start();
     }
     
     // 初始化数据库和缓存
-    @PostConstruct
     @Override
     public void initDatabase() {
         log.info("initDatabase start");
-        // 初始化常用单词
-        initCommonWords();
-        // 初始化常用短语
-        initCommonPhrases();
-        // 初始化Trie树
-        initTrie();
+        try {
+            enterPhase(StartupPhase.LOADING);
+            // 导入按lookup_key合并，先为旧数据回填查找键
+            backfillLookupKeys();
+            // 持久化数据库中已导入过相同的数据源时跳过导入
+            String fingerprint = dictionarySourceFingerprint();
+            if (isImported(fingerprint)) {
+                log.info("Dictionary sources unchanged since the last import, skipping import");
+            } else if (importDictionary()) {
+                importStateRepository.save(new ImportState(DICTIONARY_SOURCE, fingerprint));
+            }
+            // 初始化Trie树
+            enterPhase(StartupPhase.INDEXING);
+            initTrie();
+            // 按上次关闭时保存的快照预热缓存
+            enterPhase(StartupPhase.WARMING);
+            warmUpCaches();
+            enterPhase(StartupPhase.READY);
+        } catch (RuntimeException e) {
+            startupError = e.toString();
+            enterPhase(StartupPhase.FAILED);
+            throw e;
+        }
         // 使用AI生成高频词库和短语库的示例
         // String sampleText = "Sample text for AI analysis"; // 这里可以使用更长的文本
         // List<Word> aiWords = aiService.buildHighFrequencyWordList(sampleText, 50);
@@ -253,45 +477,162 @@ public class WordPhraseServiceImpl implements WordPhraseService {
         log.info("initDatabase end");
     }
     
+    // 记录上一阶段的耗时并进入新阶段
+    private synchronized void enterPhase(StartupPhase phase) {
+        long now = System.nanoTime();
+        if (startupPhase != StartupPhase.PENDING) {
+            phaseMillis.put(startupPhase.name().toLowerCase(), (now - phaseStartNanos) / 1_000_000);
+        }
+        phaseStartNanos = now;
+        startupPhase = phase;
+        log.info("Dictionary startup phase: {}", phase);
+    }
+    
+    @Override
+    public StartupPhase getStartupPhase() {
+        return startupPhase;
+    }
+    
+    @Override
+    public synchronized Map<String, Object> getStartupStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("phase", startupPhase);
+        status.put("phaseMillis", new LinkedHashMap<>(phaseMillis));
+        if (startupError != null) {
+            status.put("error", startupError);
+        }
+        return status;
+    }
+    
+    /**
+     * 按快照（热度从高到低）依次查询单词和短语信息，使其进入缓存
+     * 只预热数据库中仍然存在的单词和短语，不会为快照中的未知单词调用AI
+     */
+    private void warmUpCaches() {
+        List<List<String>> entries = dictionaryCacheService.loadSnapshot();
+        if (entries.isEmpty()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        int warmed = 0;
+        for (List<String> tokens : entries) {
+            try {
+                boolean known = tokens.size() == 1
+                        ? Tokenizer.isLetters(tokens.get(0)) && dictionaryCacheService.findWord(tokens.get(0)) != null
+                        : isPhrase(tokens);
+                if (known) {
+                    getPhraseOrWordInfos(tokens, Collections.singletonList(0));
+                    warmed++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Cache warm-up failed for '{}'", String.join(" ", tokens), e);
+            }
+        }
+        log.info("Warmed up caches with {} of {} snapshot entries in {} ms",
+                warmed, entries.size(), System.currentTimeMillis() - startTime);
+    }
+    
+    // 词元序列是否恰好是一个已收录的短语
+    private boolean isPhrase(List<String> tokens) {
+        for (PhraseMatcher.Match match : phraseMatcher.findAll(tokens)) {
+            if (match.getStart() == 0 && match.getEnd() == tokens.size()) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * 初始化Trie树，加载所有单词和短语
      */
     private void initTrie() {
         log.info("Initializing Trie...");
+        synchronized (indexLock) {
+            pendingIndexWords = new ArrayList<>();
+            pendingIndexPhrases = new ArrayList<>();
+        }
         
-        // 初始化单词Trie树
-        wordTrie = new Trie();
-        // 加载所有单词到Trie树
+        // 初始化单词Trie树、子串索引和模糊索引
+        Trie newWordTrie = new Trie();
+        SubstringIndex newSubstringIndex = new SubstringIndex();
+        FuzzyIndex newFuzzyIndex = new FuzzyIndex();
+        // 加载所有单词到Trie树、各索引和布隆过滤器
+        dictionaryCacheService.beginWordFilterRebuild();
         List<Word> allWords = wordRepository.findAll();
+        List<String> wordTexts = new ArrayList<>(allWords.size());
         for (Word word : allWords) {
-            wordTrie.insert(word.getWord(), word.getId());
+            newWordTrie.insert(word.getWord(), word.getId(), frequencyOf(word));
+            newSubstringIndex.insert(word.getWord(), word.getId());
+            newFuzzyIndex.insert(word.getWord(), word.getId());
+            wordTexts.add(word.getWord());
         }
+        dictionaryCacheService.finishWordFilterRebuild(wordTexts);
         log.info("Loaded {} words into Trie", allWords.size());
         
         // 初始化短语Trie树
-        phraseTrie = new Trie();
-        // 加载所有短语到Trie树
+        Trie newPhraseTrie = new Trie();
+        Map<Long, List<String>> phraseTokens = new LinkedHashMap<>();
+        // 加载所有短语到Trie树和短语匹配器
         List<Phrase> allPhrases = phraseRepository.findAll();
         for (Phrase phrase : allPhrases) {
-            phraseTrie.insert(phrase.getPhrase(), phrase.getId());
+            newPhraseTrie.insert(phrase.getPhrase(), phrase.getId());
+            phraseTokens.put(phrase.getId(), tokenize(phrase.getPhrase()));
         }
-        log.info("Loaded {} phrases into Trie", allPhrases.size());
         
+        PhraseMatcher newPhraseMatcher;
+        synchronized (indexLock) {
+            // 补入构建期间保存的单词和短语（重复插入同一条目是幂等的）
+            for (Word word : pendingIndexWords) {
+                newWordTrie.insert(word.getWord(), word.getId(), frequencyOf(word));
+                newSubstringIndex.insert(word.getWord(), word.getId());
+                newFuzzyIndex.insert(word.getWord(), word.getId());
+            }
+            for (Phrase phrase : pendingIndexPhrases) {
+                newPhraseTrie.insert(phrase.getPhrase(), phrase.getId());
+                phraseTokens.put(phrase.getId(), tokenize(phrase.getPhrase()));
+            }
+            pendingIndexWords = null;
+            pendingIndexPhrases = null;
+            newPhraseMatcher = new PhraseMatcher(phraseTokens);
+            
+            // 构建完成后整体发布，读线程不会看到构建到一半的索引，也不会只看到其中一部分
+            wordIndexes = new WordIndexes(newWordTrie, newSubstringIndex, newFuzzyIndex);
+            phraseMatcher = newPhraseMatcher;
+            phraseTrie = newPhraseTrie;
+        }
+        log.info("Loaded {} phrases into Trie, longest phrase {} tokens",
+                allPhrases.size(), newPhraseMatcher.getMaxLength());
+        
+        logTrieMemory("word", newWordTrie);
+        logTrieMemory("phrase", newPhraseTrie);
         log.info("Trie initialization completed");
     }
     
+    /**
+     * 输出Trie树内存占用报告（紧凑布局 vs 原HashMap节点布局的估算值）
+     */
+    private void logTrieMemory(String name, Trie trie) {
+        long compactBytes = trie.estimateMemoryBytes();
+        long hashMapBytes = trie.estimateHashMapMemoryBytes();
+        log.info("{} trie memory: {} entries, {} nodes, compact ~{} KB, HashMap layout ~{} KB ({}x smaller)",
+                name, trie.size(), trie.getNodeCount(), compactBytes / 1024, hashMapBytes / 1024,
+                String.format("%.1f", (double) hashMapBytes / Math.max(1, compactBytes)));
+    }
+    
     /**
      * 快速搜索单词（前缀匹配）
      * @param prefix 前缀
      * @return 匹配的单词列表
      */
     public List<Map<String, Object>> searchWordsByPrefix(String prefix) {
-        if (prefix == null || prefix.isEmpty()) {
+        // 索引构建完成前没有结果
+        WordIndexes indexes = wordIndexes;
+        if (prefix == null || prefix.isEmpty() || indexes == null) {
             return new ArrayList<>();
         }
         
         // 从Trie树中搜索前缀匹配的单词
-        List<Map<String, Object>> matchingWords = wordTrie.searchByPrefix(prefix);
+        List<Map<String, Object>> matchingWords = indexes.trie.searchByPrefix(prefix);
         
         // 丰富单词信息
         return enrichWordSearchResults(matchingWords);
@@ -303,12 +644,14 @@ public class WordPhraseServiceImpl implements WordPhraseService {
      * @return 包含子串的单词列表
      */
     public List<Map<String, Object>> searchWordsBySubstring(String substring) {
-        if (substring == null || substring.isEmpty()) {
+        // 索引构建完成前没有结果
+        WordIndexes indexes = wordIndexes;
+        if (substring == null || substring.isEmpty() || indexes == null) {
             return new ArrayList<>();
         }
         
-        // 从Trie树中搜索包含子串的单词
-        List<Map<String, Object>> matchingWords = wordTrie.searchBySubstring(substring);
+        // 从子串索引中搜索包含子串的单词
+        List<Map<String, Object>> matchingWords = indexes.substringIndex.search(substring);
         
         // 丰富单词信息
         return enrichWordSearchResults(matchingWords);
@@ -322,24 +665,33 @@ public class WordPhraseServiceImpl implements WordPhraseService {
     private List<Map<String, Object>> enrichWordSearchResults(List<Map<String, Object>> matchingWords) {
         List<Map<String, Object>> enrichedResults = new ArrayList<>();
         
+        // 批量取回单词和单词本状态，SQL次数与命中数量无关
+        List<Long> wordIds = collectIds(matchingWords);
+        Map<Long, Word> wordsById = findWordsByIds(wordIds);
+        Map<Long, Boolean> markStates = findMarkStates(wordIds);
+        
         for (Map<String, Object> wordInfo : matchingWords) {
             Long wordId = (Long) wordInfo.get("id");
-            Optional<Word> wordOptional = wordRepository.findById(wordId);
+            Word word = wordsById.get(wordId);
             
-            if (wordOptional.isPresent()) {
-                Word word = wordOptional.get();
+            if (word != null) {
                 Map<String, Object> enrichedWordInfo = buildWordResponse(word);
                 
                 // 检查是否在单词本中
-                Optional<WordBook> wordBookOpt = wordBookRepository.findByWordId(wordId);
-                if (wordBookOpt.isPresent()) {
-                    enrichedWordInfo.put("inWordBook", wordBookOpt.get().isMarked());
+                Boolean marked = markStates.get(wordId);
+                if (marked != null) {
+                    enrichedWordInfo.put("inWordBook", marked);
                 }
                 
                 if (word.getNote() != null) {
                     enrichedWordInfo.put("note", word.getNote());
                 }
                 
+                // 保留模糊搜索的编辑距离
+                if (wordInfo.containsKey("distance")) {
+                    enrichedWordInfo.put("distance", wordInfo.get("distance"));
+                }
+                
                 enrichedResults.add(enrichedWordInfo);
             }
         }
@@ -353,22 +705,21 @@ public class WordPhraseServiceImpl implements WordPhraseService {
      * @return 匹配的短语列表
      */
     public List<Map<String, Object>> searchPhrasesByPrefix(String prefix) {
-        if (prefix == null || prefix.isEmpty()) {
+        // 索引构建完成前没有结果
+        if (prefix == null || prefix.isEmpty() || phraseTrie == null) {
             return new ArrayList<>();
         }
         
         // 从Trie树中搜索前缀匹配的短语
         List<Map<String, Object>> matchingPhrases = phraseTrie.searchByPrefix(prefix);
         
-        // 丰富短语信息
+        // 丰富短语信息（批量查询）
         List<Map<String, Object>> enrichedResults = new ArrayList<>();
+        Map<Long, Phrase> phrasesById = findPhrasesByIds(collectIds(matchingPhrases));
         
         for (Map<String, Object> phraseInfo : matchingPhrases) {
-            Long phraseId = (Long) phraseInfo.get("id");
-            Optional<Phrase> phraseOptional = phraseRepository.findById(phraseId);
-            
-            if (phraseOptional.isPresent()) {
-                Phrase phrase = phraseOptional.get();
+            Phrase phrase = phrasesById.get((Long) phraseInfo.get("id"));
+            if (phrase != null) {
                 enrichedResults.add(buildPhraseResponse(phrase));
             }
         }
@@ -376,24 +727,58 @@ public class WordPhraseServiceImpl implements WordPhraseService {
         return enrichedResults;
     }
     
-    // 获取N-gram短语
-    private String getNgram(List<String> tokens, int index, int n) {
-        if (n == 2) {
-            // 2-gram：检查当前位置和下一个位置
-            if (index + 1 < tokens.size()) {
-                return tokens.get(index) + " " + tokens.get(index + 1);
+    // 提取搜索结果中的ID（去重，保持顺序）
+    private static List<Long> collectIds(List<Map<String, Object>> results) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Map<String, Object> result : results) {
+            Long id = (Long) result.get("id");
+            if (id != null) {
+                ids.add(id);
+            }
+        }
+        return new ArrayList<>(ids);
+    }
+    
+    // 按ID批量查询单词，每批最多QUERY_BATCH_SIZE个
+    private Map<Long, Word> findWordsByIds(List<Long> ids) {
+        return timed("db-words", () -> {
+            Map<Long, Word> wordsById = new HashMap<>();
+            for (int from = 0; from < ids.size(); from += QUERY_BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + QUERY_BATCH_SIZE));
+                for (Word word : wordRepository.findAllById(batch)) {
+                    wordsById.put(word.getId(), word);
+                }
             }
-            // 或者当前位置和前一个位置
-            if (index - 1 >= 0) {
-                return tokens.get(index - 1) + " " + tokens.get(index);
+            return wordsById;
+        });
+    }
+    
+    // 按ID批量查询短语，每批最多QUERY_BATCH_SIZE个
+    private Map<Long, Phrase> findPhrasesByIds(List<Long> ids) {
+        return timed("db-phrases", () -> {
+            Map<Long, Phrase> phrasesById = new HashMap<>();
+            for (int from = 0; from < ids.size(); from += QUERY_BATCH_SIZE) {
+                List<Long> batch = ids.subList(from, Math.min(ids.size(), from + QUERY_BATCH_SIZE));
+                for (Phrase phrase : phraseRepository.findAllById(batch)) {
+                    phrasesById.put(phrase.getId(), phrase);
+                }
             }
-        } else if (n == 3) {
-            // 3-gram：检查当前位置前后
-            if (index - 1 >= 0 && index + 1 < tokens.size()) {
-                return tokens.get(index - 1) + " " + tokens.get(index) + " " + tokens.get(index + 1);
+            return phrasesById;
+        });
+    }
+    
+    // 批量查询单词本标记状态：单词ID -> 是否标记，不在单词本中的单词没有对应项
+    private Map<Long, Boolean> findMarkStates(List<Long> wordIds) {
+        return timed("db-mark-states", () -> {
+            Map<Long, Boolean> markStates = new HashMap<>();
+            for (int from = 0; from < wordIds.size(); from += QUERY_BATCH_SIZE) {
+                List<Long> batch = wordIds.subList(from, Math.min(wordIds.size(), from + QUERY_BATCH_SIZE));
+                for (Object[] row : wordBookRepository.findMarkStatesByWordIds(batch)) {
+                    markStates.put((Long) row[0], (Boolean) row[1]);
+                }
             }
-        }
-        return null;
+            return markStates;
+        });
     }
     
     // 构建短语响应
@@ -429,158 +814,468 @@ public class WordPhraseServiceImpl implements WordPhraseService {
         return response;
     }
     
-    // 初始化常用单词
-    private void initCommonWords() {
+    // 初始化常用单词，须在导入事务中调用
+    private void initCommonWords() throws IOException {
+        // 从CSV文件加载单词数据
+        Resource resource = resourceLoader.getResource("file:" + dictionaryProperties.getWordsCsv());
+        
+        // 并行解析，按CSV顺序每批JDBC批量写入数据库（后面的行覆盖前面的行），索引和缓存由随后的initTrie统一构建
+        long startTime = System.nanoTime();
+        AtomicInteger rows = new AtomicInteger();
+        CSVUtil.importWords(resource.getFile().toPath(), IMPORT_BATCH_SIZE,
+                batch -> rows.addAndGet(wordRepository.bulkUpsert(batch)));
+        logImportThroughput("words", "CSV file", rows.get(), startTime);
+    }
+    
+    // 初始化常用短语，须在导入事务中调用
+    private void initCommonPhrases() throws IOException {
+        // 从CSV文件加载短语数据
+        Resource resource = resourceLoader.getResource("file:" + dictionaryProperties.getPhrasesCsv());
+        
+        // 并行解析，按CSV顺序每批JDBC批量写入数据库（后面的行覆盖前面的行），索引和缓存由随后的initTrie统一构建
+        long startTime = System.nanoTime();
+        AtomicInteger rows = new AtomicInteger();
+        CSVUtil.importPhrases(resource.getFile().toPath(), IMPORT_BATCH_SIZE,
+                batch -> rows.addAndGet(phraseRepository.bulkUpsert(batch)));
+        logImportThroughput("phrases", "CSV file", rows.get(), startTime);
+    }
+    
+    /**
+     * 从预编译词典镜像导入单词和短语，记录直接从内存映射中读取，不解析CSV
+     * @return 是否已从镜像导入；镜像不存在、比CSV旧或无法读取时返回false
+     */
+    private boolean initFromDictionaryImage() {
+        String imagePath = dictionaryProperties.getImagePath();
+        if (imagePath == null || imagePath.isEmpty()) {
+            return false;
+        }
+        File imageFile = new File(imagePath);
+        if (!imageFile.isFile()) {
+            return false;
+        }
+        if (isNewerThan(dictionaryProperties.getWordsCsv(), imageFile)
+                || isNewerThan(dictionaryProperties.getPhrasesCsv(), imageFile)) {
+            log.warn("Dictionary image {} is older than the CSV files, importing from CSV instead", imageFile);
+            return false;
+        }
+        try (DictionaryImage image = DictionaryImage.open(imageFile.toPath())) {
+            // 单词和短语在同一个事务中写入，失败时整体回滚
+            transactionTemplate.executeWithoutResult(status -> {
+                long startTime = System.nanoTime();
+                int words = importInBatches(image.getWordCount(), image::getWord, wordRepository::bulkUpsert);
+                logImportThroughput("words", "dictionary image", words, startTime);
+                startTime = System.nanoTime();
+                int phrases = importInBatches(image.getPhraseCount(), image::getPhrase, phraseRepository::bulkUpsert);
+                logImportThroughput("phrases", "dictionary image", phrases, startTime);
+            });
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // 镜像的写入已回滚，再从CSV导入即可
+            log.warn("Failed to import dictionary image {}, importing from CSV instead", imageFile, e);
+            return false;
+        }
+    }
+    
+    /**
+     * 导入词库：有不比CSV旧的预编译词典镜像时从镜像导入，否则解析CSV
+     *
+     * 单词和短语在同一个事务中导入，任何一步失败都整体回滚，不会留下导入了一半的词库
+     * @return 是否导入成功
+     */
+    private boolean importDictionary() {
+        if (initFromDictionaryImage()) {
+            return true;
+        }
         try {
-            // 从CSV文件加载单词数据
-            Resource resource = resourceLoader.getResource("file:c:/Trae/English/data/words.csv");
-            List<Word> words = CSVUtil.loadWordsFromCSV(resource.getFile().getPath());
-            
-            // 保存到数据库和缓存
-            for (Word word : words) {
-                saveWord(word);
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    // 初始化常用单词
+                    initCommonWords();
+                    // 初始化常用短语
+                    initCommonPhrases();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to import dictionary from CSV files, import rolled back", e);
+            return false;
+        }
+    }
+    
+    // 数据源指纹：镜像和两个CSV文件的路径、大小和修改时间，任一变化都会重新导入
+    private String dictionarySourceFingerprint() {
+        StringBuilder fingerprint = new StringBuilder();
+        for (String path : Arrays.asList(dictionaryProperties.getImagePath(),
+                dictionaryProperties.getWordsCsv(), dictionaryProperties.getPhrasesCsv())) {
+            File file = new File(path != null ? path : "");
+            fingerprint.append(file.getAbsolutePath()).append('|');
+            if (file.isFile()) {
+                fingerprint.append(file.length()).append('|').append(file.lastModified());
+            } else {
+                fingerprint.append('-');
             }
-            
-            log.info("Loaded {} words from CSV file", words.size());
-        } catch (Exception e) {
-            log.error("Failed to load words from CSV file: {}", e.getMessage());
-            e.printStackTrace();
+            fingerprint.append(';');
         }
+        return fingerprint.toString();
     }
     
-    // 初始化常用短语
-    private void initCommonPhrases() {
-        try {
-            // 从CSV文件加载短语数据
-            Resource resource = resourceLoader.getResource("file:c:/Trae/English/data/phrases.csv");
-            List<Phrase> phrases = CSVUtil.loadPhrasesFromCSV(resource.getFile().getPath());
-            
-            // 保存到数据库和缓存
-            for (Phrase phrase : phrases) {
-                savePhrase(phrase);
+    // 上次成功导入时的数据源指纹是否与当前相同（内存数据库每次启动都为空）
+    private boolean isImported(String fingerprint) {
+        return importStateRepository.findById(DICTIONARY_SOURCE)
+                .map(state -> state.getFingerprint().equals(fingerprint))
+                .orElse(false);
+    }
+    
+    // 为升级前没有查找键的单词和短语分批回填
+    private void backfillLookupKeys() {
+        int words = wordRepository.backfillLookupKeys();
+        int phrases = phraseRepository.backfillLookupKeys();
+        if (words > 0 || phrases > 0) {
+            log.info("Backfilled lookup keys for {} words and {} phrases", words, phrases);
+        }
+    }
+    
+    // 文件存在且修改时间晚于参照文件
+    private static boolean isNewerThan(String path, File reference) {
+        File file = new File(path);
+        return file.isFile() && file.lastModified() > reference.lastModified();
+    }
+    
+    // 按IMPORT_BATCH_SIZE分批读取记录并写入数据库，返回写入行数
+    private static <T> int importInBatches(int count, IntFunction<T> reader, Function<List<T>, Integer> upsert) {
+        int rows = 0;
+        List<T> batch = new ArrayList<>(Math.min(count, IMPORT_BATCH_SIZE));
+        for (int i = 0; i < count; i++) {
+            batch.add(reader.apply(i));
+            if (batch.size() == IMPORT_BATCH_SIZE || i == count - 1) {
+                rows += upsert.apply(batch);
+                batch = new ArrayList<>(IMPORT_BATCH_SIZE);
             }
-            
-            log.info("Loaded {} phrases from CSV file", phrases.size());
-        } catch (Exception e) {
-            log.error("Failed to load phrases from CSV file: {}", e.getMessage());
-            e.printStackTrace();
         }
+        return rows;
+    }
+    
+    // 输出导入行数和吞吐量（行/秒）
+    private static void logImportThroughput(String name, String source, int rows, long startNanos) {
+        double seconds = Math.max(System.nanoTime() - startNanos, 1) / 1e9;
+        log.info("Imported {} {} from {} in {} ms ({} rows/s)",
+                rows, name, source, String.format("%.1f", seconds * 1000), String.format("%.0f", rows / seconds));
     }
     
     @Override
     public Map<String, Object> processArticle(String text) {
         Map<String, Object> result = new HashMap<>();
         
-        // 1. AI翻译全文
-        String translatedText = aiService.translateText(text, "English", "Chinese");
+        // 1. AI翻译全文（异步发起，与单词解析并行）
+        CompletableFuture<String> translation = aiService.translateTextAsync(text, "English", "Chinese").toFuture();
         result.put("originalText", text);
-        result.put("translatedText", translatedText);
         
-        // 2. 分词
-        List<String> tokens = tokenize(text);
+        // 2. 分词，查找已收录的单词
+        ArticleWords article = analyzeArticle(text);
         
-        // 3. 分析每个单词，提取意思并保存到数据库
-        Map<String, Map<String, Object>> wordDetailsMap = new HashMap<>();
+        // 3. 并发调用AI获取未收录单词的信息，总耗时约为最慢的一次调用
+        Map<String, Map<String, Object>> aiWordInfos = resolveUnknownWords(article.unknownTokens);
+        
+        // 4. 按单词在文章中的顺序合并结果
         List<Map<String, Object>> uniqueWords = new ArrayList<>();
+        for (String key : article.keys) {
+            Map<String, Object> wordInfo = article.knownWordInfo(key);
+            uniqueWords.add(wordInfo != null ? wordInfo : aiWordInfos.get(key));
+        }
         
-        for (String token : tokens) {
-            // 过滤掉标点符号
-            if (!token.matches("[a-zA-Z]+")) {
-                continue;
-            }
+        result.put("translatedText", translation.join());
+        result.put("tokens", article.tokens);
+        result.put("uniqueWords", uniqueWords);
+        result.put("wordCount", uniqueWords.size());
+        result.put("phrases", article.phrases);
+        
+        return result;
+    }
+    
+    @Override
+    public Flux<ServerSentEvent<Object>> processArticleStream(String text) {
+        return Flux.defer(() -> {
+            // 翻译最先发起，完成后即推送
+            Mono<String> translation = aiService.translateTextAsync(text, "English", "Chinese").cache();
+            Disposable pendingTranslation = translation.subscribe();
+            int concurrency = Math.max(1, aiConfig.getDeepseek().getMaxConcurrency());
             
-            // 如果已经处理过该单词，跳过
-            if (wordDetailsMap.containsKey(token.toLowerCase())) {
-                continue;
+            // 分词只做内存扫描，先推送分词结果；单词和短语的缓存/数据库查询放到后续阶段
+            return Mono.fromCallable(() -> tokenizeArticle(tokenizeSpans(text)))
+                    .flatMapMany(article -> {
+                        Map<String, Object> tokensData = new HashMap<>();
+                        tokensData.put("originalText", text);
+                        tokensData.put("tokens", article.tokens);
+                        tokensData.put("wordCount", article.keys.size());
+                        
+                        // 已收录单词的查询是阻塞操作，放到boundedElastic线程执行
+                        Mono<ArticleWords> lookedUp = Mono.fromCallable(() -> findKnownWords(article))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .cache();
+                        
+                        // 已收录的单词查到后立即推送
+                        Flux<ServerSentEvent<Object>> knownWords = lookedUp
+                                .flatMapMany(words -> Flux.range(0, words.keys.size())
+                                        .filter(index -> words.knownWords.containsKey(words.keys.get(index)))
+                                        .map(index -> wordEvent(index, words.knownWordInfo(words.keys.get(index)))));
+                        
+                        Mono<ServerSentEvent<Object>> phrasesEvent = Mono.fromCallable(() -> findArticlePhrases(article.tokens))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .map(phrases -> event("phrases", Collections.singletonMap("phrases", phrases)));
+                        
+                        // 未收录的单词按AI返回的先后推送，index为单词在uniqueWords中的位置
+                        Flux<ServerSentEvent<Object>> aiWords = lookedUp
+                                .flatMapMany(words -> Flux.fromIterable(words.unknownTokens))
+                                .flatMap(token -> aiService.getWordDetailsAsync(token)
+                                        .publishOn(Schedulers.boundedElastic())
+                                        .map(details -> wordEvent(article.positions.get(token.toLowerCase()),
+                                                buildAIWordInfo(token, details))), concurrency);
+                        
+                        Mono<ServerSentEvent<Object>> translationEvent = translation
+                                .map(translatedText -> event("translation",
+                                        Collections.singletonMap("translatedText", translatedText)));
+                        
+                        // 客户端只依赖tokens在最前、done在最后；其间的事件都带有位置信息，同时订阅，
+                        // 已收录单词的推送不会推迟AI解析，AI解析和翻译也不必等前面的事件推送完
+                        return Flux.concat(
+                                Mono.just(event("tokens", tokensData)),
+                                Flux.merge(knownWords, phrasesEvent, aiWords, translationEvent),
+                                Mono.just(event("done", Collections.singletonMap("wordCount", article.keys.size()))));
+                    })
+                    .doFinally(signal -> pendingTranslation.dispose());
+        });
+    }
+    
+    private static ServerSentEvent<Object> event(String name, Object data) {
+        return ServerSentEvent.builder(data).event(name).build();
+    }
+    
+    private static ServerSentEvent<Object> wordEvent(int index, Map<String, Object> wordInfo) {
+        Map<String, Object> data = new HashMap<>(wordInfo);
+        data.put("index", index);
+        return event("word", data);
+    }
+    
+    /**
+     * 分词并查找文章中已收录的单词和短语（阻塞，包含数据库查询）
+     */
+    private ArticleWords analyzeArticle(String text) {
+        ArticleWords article = findKnownWords(tokenizeArticle(tokenizeSpans(text)));
+        article.phrases = findArticlePhrases(article.tokens);
+        return article;
+    }
+    
+    /**
+     * 按出现顺序收集文章中不重复的单词（只做内存操作，不查询缓存和数据库）
+     */
+    private ArticleWords tokenizeArticle(Tokenizer.TokenSpans spans) {
+        ArticleWords article = new ArticleWords();
+        article.tokens = spans.texts();
+        
+        // 过滤掉标点符号和数字，小写形式 -> 首次出现的原文
+        for (int i = 0; i < spans.size(); i++) {
+            if (spans.isLetters(i)) {
+                String token = article.tokens.get(i);
+                article.distinctWords.putIfAbsent(token.toLowerCase(), token);
             }
-            
-            // 获取单词详细信息
-            Map<String, Object> wordInfo;
-            
-            // 先从缓存/数据库查找
-            Word existingWord = getWordFromCache(token);
+        }
+        article.keys = new ArrayList<>(article.distinctWords.keySet());
+        for (int i = 0; i < article.keys.size(); i++) {
+            article.positions.put(article.keys.get(i), i);
+        }
+        return article;
+    }
+    
+    /**
+     * 从缓存/数据库查找已收录的单词及其单词本状态，记录未收录的单词（阻塞）
+     */
+    private ArticleWords findKnownWords(ArticleWords article) {
+        for (Map.Entry<String, String> entry : article.distinctWords.entrySet()) {
+            Word existingWord = dictionaryCacheService.findWord(entry.getValue());
             if (existingWord != null) {
-                wordInfo = buildWordResponse(existingWord);
-                // 检查是否在单词本中
-                Optional<WordBook> wordBookOpt = wordBookRepository.findByWordId(existingWord.getId());
-                if (wordBookOpt.isPresent()) {
-                    wordInfo.put("inWordBook", wordBookOpt.get().isMarked());
-                }
-                if (existingWord.getNote() != null) {
-                    wordInfo.put("note", existingWord.getNote());
-                }
+                article.knownWords.put(entry.getKey(), existingWord);
             } else {
-                // 调用AI获取单词信息
-                try {
-                    Map<String, Object> aiDetails = aiService.getWordDetails(token);
-                    
-                    // 保存到数据库
-                    Word newWord = new Word();
-                    newWord.setWord(token);
-                    newWord.setLemma(aiDetails.getOrDefault("word", token).toString());
-                    newWord.setPronunciation(aiDetails.getOrDefault("pronunciation", "/").toString());
-                    
-                    // 处理派生词
-                    List<String> synonyms = new ArrayList<>();
-                    if (aiDetails.containsKey("synonyms")) {
-                        Object synonymsObj = aiDetails.get("synonyms");
-                        if (synonymsObj instanceof List) {
-                            // 安全地转换List，确保所有元素都是String类型
-                            List<?> list = (List<?>) synonymsObj;
-                            for (Object item : list) {
-                                if (item instanceof String) {
-                                    synonyms.add((String) item);
-                                }
-                            }
-                        } else {
-                            synonyms.add(synonymsObj.toString());
-                        }
+                article.unknownTokens.add(entry.getValue());
+            }
+        }
+        article.markStates = findMarkStates(
+                article.knownWords.values().stream().map(Word::getId).distinct().collect(Collectors.toList()));
+        return article;
+    }
+    
+    /**
+     * 并发调用AI解析未收录的单词并保存到数据库
+     *
+     * AI请求通过WebClient异步发出，同时进行的请求数不超过ai.deepseek.max-concurrency；
+     * 所有结果返回后再在当前线程按原顺序逐个保存，数据库写入不进入响应式线程。
+     * @param tokens 未收录的单词（原文）
+     * @return 小写单词 -> 单词信息
+     */
+    private Map<String, Map<String, Object>> resolveUnknownWords(List<String> tokens) {
+        Map<String, Map<String, Object>> wordInfos = new HashMap<>();
+        if (tokens.isEmpty()) {
+            return wordInfos;
+        }
+        
+        int concurrency = Math.max(1, aiConfig.getDeepseek().getMaxConcurrency());
+        long startTime = System.currentTimeMillis();
+        List<Map<String, Object>> detailsList = timed("ai-resolve", () -> Flux.fromIterable(tokens)
+                .flatMapSequential(aiService::getWordDetailsAsync, concurrency)
+                .collectList()
+                .block());
+        log.info("Resolved {} unknown words via AI in {} ms (concurrency {})",
+                tokens.size(), System.currentTimeMillis() - startTime, concurrency);
+        
+        for (int i = 0; i < tokens.size(); i++) {
+            wordInfos.put(tokens.get(i).toLowerCase(), buildAIWordInfo(tokens.get(i), detailsList.get(i)));
+        }
+        return wordInfos;
+    }
+    
+    /**
+     * 保存AI返回的单词信息并构建响应（阻塞，包含数据库写入）
+     */
+    private Map<String, Object> buildAIWordInfo(String token, Map<String, Object> aiDetails) {
+        Map<String, Object> wordInfo;
+        try {
+            String meaningStr = meaningText(aiDetails);
+            
+            // 保存到数据库
+            Word savedWord = saveWordIfAbsent(buildWordFromAIDetails(token, aiDetails, meaningStr));
+            wordInfo = buildWordResponse(savedWord);
+            wordInfo.put("meaning", meaningStr);
+            wordInfo.put("inWordBook", false);
+        } catch (Exception e) {
+            log.error("Error processing word: {}", token, e);
+            wordInfo = buildDefaultResponse(token);
+            wordInfo.put("inWordBook", false);
+        }
+        return wordInfo;
+    }
+    
+    /**
+     * 文章分析的中间结果
+     */
+    private class ArticleWords {
+        // 分词结果
+        List<String> tokens;
+        // 不重复的单词，按出现顺序：小写 -> 首次出现的原文
+        final Map<String, String> distinctWords = new LinkedHashMap<>();
+        // 按出现顺序排列的不重复单词（小写）
+        List<String> keys;
+        // 小写单词 -> 在keys中的位置
+        final Map<String, Integer> positions = new HashMap<>();
+        // 已收录的单词：小写单词 -> 单词
+        final Map<String, Word> knownWords = new HashMap<>();
+        // 未收录的单词（原文）
+        final List<String> unknownTokens = new ArrayList<>();
+        // 已收录单词的单词本状态
+        Map<Long, Boolean> markStates;
+        // 文章中出现的短语
+        List<Map<String, Object>> phrases;
+        
+        // 构建已收录单词的响应，未收录时返回null
+        Map<String, Object> knownWordInfo(String key) {
+            Word existingWord = knownWords.get(key);
+            if (existingWord == null) {
+                return null;
+            }
+            Map<String, Object> wordInfo = buildWordResponse(existingWord);
+            // 检查是否在单词本中
+            Boolean marked = markStates.get(existingWord.getId());
+            if (marked != null) {
+                wordInfo.put("inWordBook", marked);
+            }
+            if (existingWord.getNote() != null) {
+                wordInfo.put("note", existingWord.getNote());
+            }
+            return wordInfo;
+        }
+    }
+    
+    // 根据AI返回的单词信息构建单词实体
+    private Word buildWordFromAIDetails(String token, Map<String, Object> aiDetails, String meaningStr) {
+        Word newWord = new Word();
+        newWord.setWord(token);
+        newWord.setLemma(aiDetails.getOrDefault("word", token).toString());
+        newWord.setPronunciation(aiDetails.getOrDefault("pronunciation", "/").toString());
+        
+        // 处理派生词
+        List<String> synonyms = new ArrayList<>();
+        if (aiDetails.containsKey("synonyms")) {
+            Object synonymsObj = aiDetails.get("synonyms");
+            if (synonymsObj instanceof List) {
+                // 安全地转换List，确保所有元素都是String类型
+                List<?> list = (List<?>) synonymsObj;
+                for (Object item : list) {
+                    if (item instanceof String) {
+                        synonyms.add((String) item);
                     }
-                    newWord.setDerivation(String.join(",", synonyms));
-                    
-                    // 设置记忆口诀（包含意思）
-                    Object meaningObj = aiDetails.getOrDefault("meaning", "");
-                    String meaningStr = "";
-                    if (meaningObj instanceof List) {
-                        // 安全地转换List，确保所有元素都是String类型
-                        List<?> list = (List<?>) meaningObj;
-                        StringBuilder sb = new StringBuilder();
-                        for (Object item : list) {
-                            if (item instanceof String) {
-                                if (sb.length() > 0) {
-                                    sb.append("; ");
-                                }
-                                sb.append((String) item);
-                            }
-                        }
-                        meaningStr = sb.toString();
-                    } else {
-                        meaningStr = meaningObj.toString();
+                }
+            } else {
+                synonyms.add(synonymsObj.toString());
+            }
+        }
+        newWord.setDerivation(String.join(",", synonyms));
+        
+        // 设置记忆口诀（包含意思）
+        newWord.setTip("意思: " + meaningStr);
+        return newWord;
+    }
+    
+    // 将AI返回的词义（字符串或数组）转换为文本
+    private static String meaningText(Map<String, Object> aiDetails) {
+        Object meaningObj = aiDetails.getOrDefault("meaning", "");
+        if (meaningObj instanceof List) {
+            // 安全地转换List，确保所有元素都是String类型
+            List<?> list = (List<?>) meaningObj;
+            StringBuilder sb = new StringBuilder();
+            for (Object item : list) {
+                if (item instanceof String) {
+                    if (sb.length() > 0) {
+                        sb.append("; ");
                     }
-                    newWord.setTip("意思: " + meaningStr);
-                    
-                    // 保存到数据库
-                    Word savedWord = saveWord(newWord);
-                    wordInfo = buildWordResponse(savedWord);
-                    wordInfo.put("meaning", meaningStr);
-                    wordInfo.put("inWordBook", false);
-                } catch (Exception e) {
-                    log.error("Error processing word: {}", token, e);
-                    wordInfo = buildDefaultResponse(token);
-                    wordInfo.put("inWordBook", false);
+                    sb.append((String) item);
                 }
             }
-            
-            // 保存单词信息
-            wordDetailsMap.put(token.toLowerCase(), wordInfo);
-            uniqueWords.add(wordInfo);
+            return sb.toString();
+        }
+        return meaningObj.toString();
+    }
+    
+    /**
+     * 一次线性扫描找出文章中的所有短语出现位置
+     * @param tokens 文章词元序列
+     * @return 短语信息列表，按出现位置排列，包含词元区间start/end
+     */
+    private List<Map<String, Object>> findArticlePhrases(List<String> tokens) {
+        List<PhraseMatcher.Match> matches = timed("phrase-match", () -> phraseMatcher.findAll(tokens));
+        if (matches.isEmpty()) {
+            return new ArrayList<>();
         }
         
-        result.put("tokens", tokens);
-        result.put("uniqueWords", uniqueWords);
-        result.put("wordCount", uniqueWords.size());
+        // 批量取回所有命中的短语
+        Set<Long> phraseIds = new LinkedHashSet<>();
+        for (PhraseMatcher.Match match : matches) {
+            phraseIds.add(match.getPhraseId());
+        }
+        Map<Long, Phrase> phrasesById = findPhrasesByIds(new ArrayList<>(phraseIds));
         
-        return result;
+        matches.sort(Comparator.comparingInt(PhraseMatcher.Match::getStart)
+                .thenComparing(Comparator.comparingInt(PhraseMatcher.Match::length).reversed()));
+        List<Map<String, Object>> phrases = new ArrayList<>();
+        for (PhraseMatcher.Match match : matches) {
+            Phrase phrase = phrasesById.get(match.getPhraseId());
+            if (phrase != null) {
+                Map<String, Object> phraseInfo = buildPhraseResponse(phrase);
+                phraseInfo.put("start", match.getStart());
+                phraseInfo.put("end", match.getEnd());
+                phrases.add(phraseInfo);
+            }
+        }
+        return phrases;
     }
     
     @Override
@@ -622,13 +1317,23 @@ public class WordPhraseServiceImpl implements WordPhraseService {
     }
     
     @Override
-    public List<Map<String, Object>> getWordBook() {
-        List<Map<String, Object>> wordBookList = new ArrayList<>();
+    public Map<String, Object> getWordBook(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_WORD_BOOK_PAGE_SIZE));
+        // 多取一条判断是否还有下一页
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
         
-        // 获取所有标记的单词
-        List<WordBook> markedWords = wordBookRepository.findByIsMarkedTrue();
+        // 获取一页标记的单词，单词随条目一起取回，不再逐条查询
+        WordBookCursor after = WordBookCursor.parse(cursor);
+        List<WordBook> markedWords = after != null
+                ? wordBookRepository.findMarkedPageAfter(after.createdAt, after.id, pageable)
+                : wordBookRepository.findMarkedPage(pageable);
+        boolean hasMore = markedWords.size() > pageSize;
+        if (hasMore) {
+            markedWords = markedWords.subList(0, pageSize);
+        }
         
         // 构建响应
+        List<Map<String, Object>> wordBookList = new ArrayList<>();
         for (WordBook wordBook : markedWords) {
             Word word = wordBook.getWord();
             Map<String, Object> wordInfo = buildWordResponse(word);
@@ -643,7 +1348,41 @@ public class WordPhraseServiceImpl implements WordPhraseService {
             wordBookList.add(wordInfo);
         }
         
-        return wordBookList;
+        Map<String, Object> page = new HashMap<>();
+        page.put("items", wordBookList);
+        page.put("nextCursor", hasMore ? WordBookCursor.of(markedWords.get(markedWords.size() - 1)) : null);
+        return page;
+    }
+    
+    /**
+     * 单词本分页游标："加入时间毫秒数_条目ID"，即上一页最后一条的排序键
+     */
+    private static final class WordBookCursor {
+        private final Date createdAt;
+        private final Long id;
+        
+        private WordBookCursor(Date createdAt, Long id) {
+            this.createdAt = createdAt;
+            this.id = id;
+        }
+        
+        static String of(WordBook wordBook) {
+            return wordBook.getCreatedAt().getTime() + "_" + wordBook.getId();
+        }
+        
+        // 无效的游标按第一页处理
+        static WordBookCursor parse(String cursor) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            int separator = cursor.indexOf('_');
+            try {
+                return new WordBookCursor(new Date(Long.parseLong(cursor.substring(0, separator))),
+                        Long.parseLong(cursor.substring(separator + 1)));
+            } catch (NumberFormatException | IndexOutOfBoundsException e) {
+                return null;
+            }
+        }
     }
     
     @Override
@@ -663,6 +1402,7 @@ public class WordPhraseServiceImpl implements WordPhraseService {
         // 更新笔记
         word.setNote(note);
         wordRepository.save(word);
+        dictionaryCacheService.evictWord(word.getWord());
         
         // 构建响应
         response.put("success", true);
@@ -672,4 +1412,27 @@ public class WordPhraseServiceImpl implements WordPhraseService {
         
         return response;
     }
-}
\ No newline at end of file
+    
+    /**
+     * 一次发布的单词索引：前缀树、子串索引和模糊索引
+     *
+     * 引用本身不可变，三个索引各自支持并发读写（saveWord在indexLock下插入新单词）
+     */
+    private static final class WordIndexes {
+        private final Trie trie;
+        private final SubstringIndex substringIndex;
+        private final FuzzyIndex fuzzyIndex;
+        
+        private WordIndexes(Trie trie, SubstringIndex substringIndex, FuzzyIndex fuzzyIndex) {
+            this.trie = trie;
+            this.substringIndex = substringIndex;
+            this.fuzzyIndex = fuzzyIndex;
+        }
+        
+        private void insert(Word word) {
+            trie.insert(word.getWord(), word.getId(), frequencyOf(word));
+            substringIndex.insert(word.getWord(), word.getId());
+            fuzzyIndex.insert(word.getWord(), word.getId());
+        }
+    }
+}
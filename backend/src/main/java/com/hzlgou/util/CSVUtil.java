@@ -2,49 +2,38 @@ package com.hzlgou.util;
 
 import com.hzlgou.model.Phrase;
 import com.hzlgou.model.Word;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.io.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * CSV工具类，用于从CSV文件加载单词和短语数据
+ *
+ * 解析由{@link CsvParser}完成（RFC 4180，UTF-8）。大文件导入使用importWords/importPhrases，
+ * 按块并行解析，再按CSV中的顺序分批交给调用方，内存占用与文件大小无关。
  */
 public class CSVUtil {
+    private static final Logger log = LoggerFactory.getLogger(CSVUtil.class);
+
+    // 并行解析的线程数
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
 
     /**
      * 从CSV文件加载单词数据
      * @param filePath CSV文件路径
      * @return 单词列表
+     * @throws IOException 读取失败
      */
-    public static List<Word> loadWordsFromCSV(String filePath) {
+    public static List<Word> loadWordsFromCSV(String filePath) throws IOException {
         List<Word> words = new ArrayList<>();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean isFirstLine = true;
-            
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false; // 跳过表头
-                    continue;
-                }
-                
-                String[] parts = parseCSVLine(line);
-                if (parts.length >= 5) {
-                    Word word = new Word();
-                    word.setWord(parts[0].trim());
-                    word.setLemma(parts[1].trim());
-                    word.setPronunciation(parts[2].trim());
-                    word.setDerivation(parts[3].trim());
-                    word.setTip(parts[4].trim());
-                    words.add(word);
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        
+        CsvParser.parse(Paths.get(filePath), true, new RowSink<>(CSVUtil::toWord, Integer.MAX_VALUE, words::addAll));
         return words;
     }
 
@@ -52,62 +41,104 @@ public class CSVUtil {
      * 从CSV文件加载短语数据
      * @param filePath CSV文件路径
      * @return 短语列表
+     * @throws IOException 读取失败
      */
-    public static List<Phrase> loadPhrasesFromCSV(String filePath) {
+    public static List<Phrase> loadPhrasesFromCSV(String filePath) throws IOException {
         List<Phrase> phrases = new ArrayList<>();
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            boolean isFirstLine = true;
-            
-            while ((line = br.readLine()) != null) {
-                if (isFirstLine) {
-                    isFirstLine = false; // 跳过表头
-                    continue;
-                }
-                
-                String[] parts = parseCSVLine(line);
-                if (parts.length >= 6) {
-                    Phrase phrase = new Phrase();
-                    phrase.setPhrase(parts[0].trim());
-                    phrase.setLen(Integer.parseInt(parts[1].trim()));
-                    phrase.setMainIdx(Integer.parseInt(parts[2].trim()));
-                    phrase.setPronunciation(parts[3].trim());
-                    phrase.setDerivation(parts[4].trim());
-                    phrase.setTip(parts[5].trim());
-                    phrases.add(phrase);
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        
+        CsvParser.parse(Paths.get(filePath), true, new RowSink<>(CSVUtil::toPhrase, Integer.MAX_VALUE, phrases::addAll));
         return phrases;
     }
 
     /**
-     * 解析CSV行，处理包含逗号的字段（用引号括起来的字段）
-     * @param line CSV行
-     * @return 解析后的字段数组
+     * 并行解析单词CSV，按行在文件中的顺序每凑满一批就交给调用方
+     * @param file CSV文件
+     * @param batchSize 批大小
+     * @param batchConsumer 批处理；只在调用线程上被调用，批按CSV中的顺序交出（可以加入调用方的事务）
+     * @throws IOException 读取失败
+     */
+    public static void importWords(Path file, int batchSize, Consumer<List<Word>> batchConsumer) throws IOException {
+        CsvParser.parseParallelOrdered(file, true, PARALLELISM, new RowSink<>(CSVUtil::toWord, batchSize, batchConsumer));
+    }
+
+    /**
+     * 并行解析短语CSV，按行在文件中的顺序每凑满一批就交给调用方
+     * @param file CSV文件
+     * @param batchSize 批大小
+     * @param batchConsumer 批处理；只在调用线程上被调用，批按CSV中的顺序交出（可以加入调用方的事务）
+     * @throws IOException 读取失败
      */
-    private static String[] parseCSVLine(String line) {
-        List<String> fields = new ArrayList<>();
-        StringBuilder currentField = new StringBuilder();
-        boolean inQuotes = false;
-        
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                fields.add(currentField.toString());
-                currentField.setLength(0);
-            } else {
-                currentField.append(c);
+    public static void importPhrases(Path file, int batchSize, Consumer<List<Phrase>> batchConsumer) throws IOException {
+        CsvParser.parseParallelOrdered(file, true, PARALLELISM, new RowSink<>(CSVUtil::toPhrase, batchSize, batchConsumer));
+    }
+
+    // 字段：word, lemma, pronunciation, derivation, tip；字段不足的行跳过
+    private static Word toWord(String[] parts) {
+        if (parts.length < 5) {
+            return null;
+        }
+        Word word = new Word();
+        word.setWord(parts[0].trim());
+        word.setLemma(parts[1].trim());
+        word.setPronunciation(parts[2].trim());
+        word.setDerivation(parts[3].trim());
+        word.setTip(parts[4].trim());
+        return word;
+    }
+
+    // 字段：phrase, len, main_idx, pronunciation, derivation, tip；字段不足或数字无效的行跳过
+    private static Phrase toPhrase(String[] parts) {
+        if (parts.length < 6) {
+            return null;
+        }
+        Phrase phrase = new Phrase();
+        phrase.setPhrase(parts[0].trim());
+        try {
+            phrase.setLen(Integer.parseInt(parts[1].trim()));
+            phrase.setMainIdx(Integer.parseInt(parts[2].trim()));
+        } catch (NumberFormatException e) {
+            log.warn("Skipping phrase row with invalid len/main_idx: {}", parts[0]);
+            return null;
+        }
+        phrase.setPronunciation(parts[3].trim());
+        phrase.setDerivation(parts[4].trim());
+        phrase.setTip(parts[5].trim());
+        return phrase;
+    }
+
+    /**
+     * 把记录转换为实体并按批交出
+     */
+    private static final class RowSink<T> implements CsvParser.RecordSink {
+        private final Function<String[], T> mapper;
+        private final int batchSize;
+        private final Consumer<List<T>> batchConsumer;
+        private List<T> batch = new ArrayList<>();
+
+        RowSink(Function<String[], T> mapper, int batchSize, Consumer<List<T>> batchConsumer) {
+            this.mapper = mapper;
+            this.batchSize = batchSize;
+            this.batchConsumer = batchConsumer;
+        }
+
+        @Override
+        public void accept(String[] fields) {
+            T row = mapper.apply(fields);
+            if (row == null) {
+                return;
+            }
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        @Override
+        public void finish() {
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+                batch = new ArrayList<>();
             }
         }
-        
-        fields.add(currentField.toString());
-        
-        return fields.toArray(new String[0]);
     }
 }
@@ -0,0 +1,405 @@
+package com.hzlgou.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+/**
+ * 流式CSV解析器（RFC 4180，UTF-8编码）
+ *
+ * 文件通过内存映射按块读取，逐条解析记录并交给接收者，不把整个文件读入内存。
+ * 支持带引号的字段、字段中的逗号和换行、""转义的引号，以及CRLF/LF换行和UTF-8 BOM。
+ *
+ * 并行解析时先把文件切成大致等长的块：由于RFC 4180中引号总是成对出现（转义引号为两个），
+ * 某个位置之前的引号数为偶数就说明该位置不在引号内。先并行统计每块的引号数，
+ * 再把每个块的起点移到其后第一个不在引号内的换行之后，各块即可独立解析。
+ * 需要按文件顺序处理记录时（如导入时后面的行覆盖前面的行）使用parseParallelOrdered：
+ * 各块仍并行解析，记录按块在文件中的顺序在调用线程上交出。
+ */
+public final class CsvParser {
+    // 每块的目标大小
+    private static final int CHUNK_SIZE = 32 * 1024 * 1024;
+    // 按序并行解析时每块的目标大小：已解析未交出的块保存在内存中，块小一些以限制内存占用
+    private static final int ORDERED_CHUNK_SIZE = 4 * 1024 * 1024;
+
+    private static final byte QUOTE = '"';
+    private static final byte COMMA = ',';
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private CsvParser() {
+    }
+
+    /**
+     * 记录接收者，每个解析块对应一个
+     */
+    @FunctionalInterface
+    public interface RecordSink {
+        /**
+         * 接收一条记录
+         * @param fields 字段
+         */
+        void accept(String[] fields);
+
+        /**
+         * 所在块解析完成后调用一次
+         */
+        default void finish() {
+        }
+    }
+
+    /**
+     * 顺序解析整个文件
+     * @param file 文件
+     * @param hasHeader 第一条记录是否为表头（跳过）
+     * @param sink 记录接收者
+     * @throws IOException 读取失败
+     */
+    public static void parse(Path file, boolean hasHeader, RecordSink sink) throws IOException {
+        parse(file, hasHeader, sink, CHUNK_SIZE);
+    }
+
+    static void parse(Path file, boolean hasHeader, RecordSink sink, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            // 单次映射不能超过2GB，按块映射，块边界对齐到记录边界。
+            // 每块的起点都在记录边界上（不在引号内），由块内的引号数奇偶得知块的名义终点是否在引号内
+            long start = 0;
+            boolean skipHeader = hasHeader;
+            while (start < size) {
+                long end = size;
+                if (start + chunkSize < size) {
+                    boolean inQuotes = (countQuotes(channel, start, start + chunkSize) & 1) == 1;
+                    end = alignedStart(channel, start + chunkSize, inQuotes, size);
+                }
+                new ChunkReader(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), start == 0)
+                        .readAll(skipHeader, sink);
+                skipHeader = false;
+                start = end;
+            }
+        }
+        sink.finish();
+    }
+
+    /**
+     * 把文件切成按记录边界对齐的块并行解析
+     * @param file 文件
+     * @param hasHeader 第一条记录是否为表头（跳过）
+     * @param parallelism 并行线程数
+     * @param sinkFactory 为每个块创建记录接收者；不同块的接收者在不同线程中被调用
+     * @throws IOException 读取失败
+     */
+    public static void parseParallel(Path file, boolean hasHeader, int parallelism,
+                                     Supplier<? extends RecordSink> sinkFactory) throws IOException {
+        parseParallel(file, hasHeader, parallelism, sinkFactory, CHUNK_SIZE);
+    }
+
+    static void parseParallel(Path file, boolean hasHeader, int parallelism,
+                              Supplier<? extends RecordSink> sinkFactory, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            if (chunks == 1 || parallelism <= 1) {
+                parse(file, hasHeader, sinkFactory.get(), chunkSize);
+                return;
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks));
+            try {
+                long[] starts = chunkStarts(channel, size, chunks, chunkSize, executor);
+                // 3. 并行解析各块
+                List<Future<Void>> results = new ArrayList<>();
+                for (int i = 0; i < chunks; i++) {
+                    long from = starts[i];
+                    long to = Math.max(from, starts[i + 1]);
+                    boolean first = i == 0;
+                    results.add(executor.submit(() -> {
+                        RecordSink sink = sinkFactory.get();
+                        if (to > from) {
+                            new ChunkReader(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from), first)
+                                    .readAll(first && hasHeader, sink);
+                        }
+                        sink.finish();
+                        return null;
+                    }));
+                }
+                for (Future<Void> result : results) {
+                    await(result);
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * 并行解析各块，按记录在文件中的顺序在调用线程上交给同一个接收者
+     *
+     * 最多同时有parallelism个块在解析或等待交出，内存占用与文件大小无关。
+     * @param file 文件
+     * @param hasHeader 第一条记录是否为表头（跳过）
+     * @param parallelism 并行线程数
+     * @param sink 记录接收者，只在调用线程上被调用，全部记录交出后调用一次finish
+     * @throws IOException 读取失败
+     */
+    public static void parseParallelOrdered(Path file, boolean hasHeader, int parallelism, RecordSink sink)
+            throws IOException {
+        parseParallelOrdered(file, hasHeader, parallelism, sink, ORDERED_CHUNK_SIZE);
+    }
+
+    static void parseParallelOrdered(Path file, boolean hasHeader, int parallelism, RecordSink sink, int chunkSize)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunks = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            if (chunks == 1 || parallelism <= 1) {
+                parse(file, hasHeader, sink, chunkSize);
+                return;
+            }
+
+            int window = Math.min(parallelism, chunks);
+            ExecutorService executor = Executors.newFixedThreadPool(window);
+            try {
+                long[] starts = chunkStarts(channel, size, chunks, chunkSize, executor);
+                // 滑动窗口：交出第i块后才提交第i+window块
+                List<Future<List<String[]>>> results = new ArrayList<>(chunks);
+                for (int i = 0; i < chunks; i++) {
+                    results.add(i < window ? submitChunk(executor, channel, starts, i, hasHeader) : null);
+                }
+                for (int i = 0; i < chunks; i++) {
+                    List<String[]> records = await(results.get(i));
+                    results.set(i, null);
+                    if (i + window < chunks) {
+                        results.set(i + window, submitChunk(executor, channel, starts, i + window, hasHeader));
+                    }
+                    for (String[] record : records) {
+                        sink.accept(record);
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        sink.finish();
+    }
+
+    // 在后台解析第index块，返回块内的全部记录
+    private static Future<List<String[]>> submitChunk(ExecutorService executor, FileChannel channel, long[] starts,
+                                                      int index, boolean hasHeader) {
+        long from = starts[index];
+        long to = Math.max(from, starts[index + 1]);
+        boolean first = index == 0;
+        return executor.submit(() -> {
+            List<String[]> records = new ArrayList<>();
+            if (to > from) {
+                new ChunkReader(channel.map(FileChannel.MapMode.READ_ONLY, from, to - from), first)
+                        .readAll(first && hasHeader, records::add);
+            }
+            return records;
+        });
+    }
+
+    /**
+     * 计算各块的起点（对齐到记录边界），starts[chunks]为文件大小
+     */
+    private static long[] chunkStarts(FileChannel channel, long size, int chunks, int chunkSize,
+                                      ExecutorService executor) throws IOException {
+        // 1. 并行统计每个原始块中的引号数
+        List<Future<Long>> quoteCounts = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            long from = (long) i * chunkSize;
+            long to = Math.min(size, from + chunkSize);
+            quoteCounts.add(executor.submit(() -> countQuotes(channel, from, to)));
+        }
+
+        // 2. 由引号数的前缀和得知每个原始块起点是否在引号内，再对齐到记录边界
+        long[] starts = new long[chunks + 1];
+        long quotes = 0;
+        for (int i = 1; i < chunks; i++) {
+            quotes += await(quoteCounts.get(i - 1));
+            starts[i] = alignedStart(channel, (long) i * chunkSize, (quotes & 1) == 1, size);
+        }
+        starts[chunks] = size;
+        return starts;
+    }
+
+    // 统计[from, to)中的引号数
+    private static long countQuotes(FileChannel channel, long from, long to) throws IOException {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+        long count = 0;
+        for (int i = 0, n = buffer.limit(); i < n; i++) {
+            if (buffer.get(i) == QUOTE) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // 从position开始找到第一个不在引号内的换行，返回其后的位置；找不到时返回文件末尾
+    private static long alignedStart(FileChannel channel, long position, boolean inQuotes, long size) throws IOException {
+        long pos = position;
+        while (pos < size) {
+            int length = (int) Math.min(1024 * 1024, size - pos);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(i);
+                if (b == QUOTE) {
+                    inQuotes = !inQuotes;
+                } else if (b == LF && !inQuotes) {
+                    return pos + i + 1;
+                }
+            }
+            pos += length;
+        }
+        return size;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("CSV parsing interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 解析一个块内的记录（块的起止都在记录边界上）
+     */
+    private static final class ChunkReader {
+        private final MappedByteBuffer buffer;
+        private final int length;
+        private int pos;
+        // 当前字段的字节，复用以减少分配
+        private byte[] field = new byte[256];
+        private int fieldLength;
+        private final List<String> fields = new ArrayList<>();
+
+        ChunkReader(MappedByteBuffer buffer, boolean fileStart) {
+            this.buffer = buffer;
+            this.length = buffer.limit();
+            // 跳过文件开头的UTF-8 BOM
+            if (fileStart && length >= 3 && buffer.get(0) == (byte) 0xEF
+                    && buffer.get(1) == (byte) 0xBB && buffer.get(2) == (byte) 0xBF) {
+                pos = 3;
+            }
+        }
+
+        void readAll(boolean skipFirst, RecordSink sink) {
+            String[] record = next();
+            if (skipFirst && record != null) {
+                record = next();
+            }
+            while (record != null) {
+                sink.accept(record);
+                record = next();
+            }
+        }
+
+        /**
+         * 读取下一条记录，块结束时返回null；空行跳过
+         */
+        String[] next() {
+            while (pos < length) {
+                byte b = buffer.get(pos);
+                if (b == LF) {
+                    pos++;
+                } else if (b == CR && (pos + 1 >= length || buffer.get(pos + 1) == LF)) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (pos >= length) {
+                return null;
+            }
+
+            fields.clear();
+            while (true) {
+                fieldLength = 0;
+                if (pos < length && buffer.get(pos) == QUOTE) {
+                    readQuoted();
+                } else {
+                    readUnquoted();
+                }
+                fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+
+                if (pos >= length) {
+                    break;
+                }
+                byte b = buffer.get(pos++);
+                if (b == COMMA) {
+                    continue;
+                }
+                if (b == CR && pos < length && buffer.get(pos) == LF) {
+                    pos++;
+                }
+                break;
+            }
+            return fields.toArray(new String[0]);
+        }
+
+        // 不带引号的字段：读到逗号或换行为止（不消费分隔符），字段中间的引号按普通字符处理
+        private void readUnquoted() {
+            while (pos < length) {
+                byte b = buffer.get(pos);
+                if (b == COMMA || b == LF || (b == CR && (pos + 1 >= length || buffer.get(pos + 1) == LF))) {
+                    return;
+                }
+                append(b);
+                pos++;
+            }
+        }
+
+        // 带引号的字段：""为转义的引号，结束引号之后到分隔符之前的内容按普通字符追加
+        private void readQuoted() {
+            pos++;
+            while (pos < length) {
+                byte b = buffer.get(pos++);
+                if (b == QUOTE) {
+                    if (pos < length && buffer.get(pos) == QUOTE) {
+                        append(QUOTE);
+                        pos++;
+                    } else {
+                        readUnquoted();
+                        return;
+                    }
+                } else {
+                    append(b);
+                }
+            }
+            // 文件在引号内结束：按已读到的内容作为字段
+        }
+
+        private void append(byte b) {
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = b;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.hzlgou.util;
+
+import com.hzlgou.model.Phrase;
+import com.hzlgou.model.Word;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 词典编译器：把单词和短语CSV编译为{@link DictionaryImage}格式的二进制镜像，启动时用来替代CSV解析
+ *
+ * 离线运行：java -cp app.jar com.hzlgou.util.DictionaryCompiler words.csv phrases.csv dictionary.bin
+ * 同一个键出现多次时以最后一行为准（与按CSV顺序导入数据库的结果一致）。
+ */
+public final class DictionaryCompiler {
+
+    // 按UTF-8无符号字节序排列，同样的CSV总是编译出相同的镜像
+    private static final Comparator<String> KEY_ORDER = (a, b) -> {
+        byte[] x = a.getBytes(StandardCharsets.UTF_8);
+        byte[] y = b.getBytes(StandardCharsets.UTF_8);
+        int n = Math.min(x.length, y.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Integer.compare(x[i] & 0xFF, y[i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(x.length, y.length);
+    };
+
+    private DictionaryCompiler() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.err.println("Usage: DictionaryCompiler <words.csv> <phrases.csv> <output>");
+            System.exit(2);
+        }
+        long startTime = System.currentTimeMillis();
+        Path output = Paths.get(args[2]);
+        compile(Paths.get(args[0]), Paths.get(args[1]), output);
+        try (DictionaryImage image = DictionaryImage.open(output)) {
+            System.out.printf("Compiled %d words and %d phrases into %s (%d bytes) in %d ms%n",
+                    image.getWordCount(), image.getPhraseCount(), output, Files.size(output),
+                    System.currentTimeMillis() - startTime);
+        }
+    }
+
+    /**
+     * 编译CSV为词典镜像，先写临时文件再原子替换，正在使用旧镜像的进程不受影响
+     * @param wordsCsv 单词CSV
+     * @param phrasesCsv 短语CSV，为null时镜像中没有短语
+     * @param output 镜像文件
+     * @throws IOException 读写失败
+     */
+    public static void compile(Path wordsCsv, Path phrasesCsv, Path output) throws IOException {
+        Map<String, Word> words = new TreeMap<>(KEY_ORDER);
+        for (Word word : CSVUtil.loadWordsFromCSV(wordsCsv.toString())) {
+            words.put(word.getWord(), word);
+        }
+        Map<String, Phrase> phrases = new TreeMap<>(KEY_ORDER);
+        if (phrasesCsv != null) {
+            for (Phrase phrase : CSVUtil.loadPhrasesFromCSV(phrasesCsv.toString())) {
+                phrases.put(phrase.getPhrase(), phrase);
+            }
+        }
+        write(new ArrayList<>(words.values()), new ArrayList<>(phrases.values()), output);
+    }
+
+    /**
+     * 把已按键排序、无重复的单词和短语写为词典镜像
+     * @param words 单词
+     * @param phrases 短语
+     * @param output 镜像文件
+     * @throws IOException 写入失败
+     */
+    static void write(List<Word> words, List<Phrase> phrases, Path output) throws IOException {
+        Path parent = output.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = Files.createTempFile(parent, output.getFileName().toString(), ".tmp");
+        try {
+            int wordIndex;
+            int phraseIndex;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                // 头部先占位，偏移表位置写完后回填
+                for (int i = 0; i < DictionaryImage.HEADER_SIZE / 4; i++) {
+                    out.writeInt(0);
+                }
+
+                int[] wordOffsets = new int[words.size()];
+                for (int i = 0; i < words.size(); i++) {
+                    wordOffsets[i] = position(out);
+                    Word word = words.get(i);
+                    writeString(out, word.getWord());
+                    writeString(out, word.getLemma());
+                    writeString(out, word.getPronunciation());
+                    writeString(out, word.getDerivation());
+                    writeString(out, word.getTip());
+                }
+
+                int[] phraseOffsets = new int[phrases.size()];
+                for (int i = 0; i < phrases.size(); i++) {
+                    phraseOffsets[i] = position(out);
+                    Phrase phrase = phrases.get(i);
+                    writeString(out, phrase.getPhrase());
+                    out.writeInt(phrase.getLen());
+                    out.writeInt(phrase.getMainIdx());
+                    writeString(out, phrase.getPronunciation());
+                    writeString(out, phrase.getDerivation());
+                    writeString(out, phrase.getTip());
+                }
+
+                wordIndex = position(out);
+                for (int offset : wordOffsets) {
+                    out.writeInt(offset);
+                }
+                phraseIndex = position(out);
+                for (int offset : phraseOffsets) {
+                    out.writeInt(offset);
+                }
+                position(out);
+            }
+
+            try (RandomAccessFile file = new RandomAccessFile(temp.toFile(), "rw")) {
+                file.writeInt(DictionaryImage.MAGIC);
+                file.writeInt(DictionaryImage.VERSION);
+                file.writeInt(words.size());
+                file.writeInt(phrases.size());
+                file.writeInt(wordIndex);
+                file.writeInt(phraseIndex);
+            }
+            Files.move(temp, output, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // 当前写入位置；DataOutputStream的计数超过2GB后停在Integer.MAX_VALUE
+    private static int position(DataOutputStream out) throws IOException {
+        int size = out.size();
+        if (size == Integer.MAX_VALUE) {
+            throw new IOException("Dictionary image larger than 2GB");
+        }
+        return size;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,167 @@
+package com.hzlgou.util;
+
+import com.hzlgou.model.Phrase;
+import com.hzlgou.model.Word;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 预编译词典镜像（只读）
+ *
+ * 由{@link DictionaryCompiler}生成的不可变二进制文件，通过内存映射直接读取，打开时不做任何反序列化。
+ * 同一台机器上的多个JVM映射同一文件时共享操作系统的页缓存。
+ *
+ * 文件格式（大端）：
+ * <pre>
+ * 头部：  int MAGIC, int VERSION, int 单词数, int 短语数, int 单词偏移表位置, int 短语偏移表位置
+ * 偏移表：每条记录一个int，指向记录起始位置，按键（单词/短语）的UTF-8字节序排列（同样的输入总是生成相同的文件）
+ * 字符串：int 字节长度（-1表示null）+ UTF-8字节
+ * 单词记录：word, lemma, pronunciation, derivation, tip
+ * 短语记录：phrase, int len, int mainIdx, pronunciation, derivation, tip
+ * </pre>
+ * 只有取出记录时才解码字符串。单个镜像不超过2GB（一次映射的上限）。
+ *
+ * 使用范围：镜像只替代启动时的CSV解析，不提供按键查询，也不能让冷启动缩短到毫秒级。
+ * 单词ID、单词本、笔记和运行时新增的单词都以数据库为准，查询返回的必须是数据库中的实体，
+ * 因此启动时仍按序号逐条取出记录批量写入数据库，再从数据库构建索引，启动耗时主要取决于这次导入。
+ * 需要跳过导入时使用持久化模式（文件数据库），数据源自上次导入后未变化时启动不再写入。
+ */
+public final class DictionaryImage implements Closeable {
+    static final int MAGIC = 0x57504449; // "WPDI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int wordCount;
+    private final int phraseCount;
+    private final int wordIndex;
+    private final int phraseIndex;
+
+    private DictionaryImage(Path path, FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a dictionary image: " + path);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported dictionary image version " + buffer.getInt(4) + ": " + path);
+        }
+        this.wordCount = buffer.getInt(8);
+        this.phraseCount = buffer.getInt(12);
+        this.wordIndex = buffer.getInt(16);
+        this.phraseIndex = buffer.getInt(20);
+        if ((long) wordIndex + 4L * wordCount > buffer.limit() || (long) phraseIndex + 4L * phraseCount > buffer.limit()) {
+            throw new IOException("Truncated dictionary image: " + path);
+        }
+    }
+
+    /**
+     * 以只读方式映射镜像文件
+     * @param path 镜像文件
+     * @return 镜像
+     * @throws IOException 文件无法读取或格式不正确
+     */
+    public static DictionaryImage open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Dictionary image larger than 2GB: " + path);
+            }
+            return new DictionaryImage(path, channel, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getWordCount() {
+        return wordCount;
+    }
+
+    public int getPhraseCount() {
+        return phraseCount;
+    }
+
+    /**
+     * 取第index个单词（按键排序）
+     * @param index 序号，0到getWordCount()-1
+     * @return 单词（id为null）
+     */
+    public Word getWord(int index) {
+        int pos = buffer.getInt(wordIndex + 4 * checkIndex(index, wordCount));
+        Word word = new Word();
+        word.setWord(readString(pos));
+        pos = skipString(pos);
+        word.setLemma(readString(pos));
+        pos = skipString(pos);
+        word.setPronunciation(readString(pos));
+        pos = skipString(pos);
+        word.setDerivation(readString(pos));
+        pos = skipString(pos);
+        word.setTip(readString(pos));
+        return word;
+    }
+
+    /**
+     * 取第index个短语（按键排序）
+     * @param index 序号，0到getPhraseCount()-1
+     * @return 短语（id为null）
+     */
+    public Phrase getPhrase(int index) {
+        int pos = buffer.getInt(phraseIndex + 4 * checkIndex(index, phraseCount));
+        Phrase phrase = new Phrase();
+        phrase.setPhrase(readString(pos));
+        pos = skipString(pos);
+        phrase.setLen(buffer.getInt(pos));
+        phrase.setMainIdx(buffer.getInt(pos + 4));
+        pos += 8;
+        phrase.setPronunciation(readString(pos));
+        pos = skipString(pos);
+        phrase.setDerivation(readString(pos));
+        pos = skipString(pos);
+        phrase.setTip(readString(pos));
+        return phrase;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private String readString(int pos) {
+        int length = buffer.getInt(pos);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer slice = buffer.duplicate();
+        slice.position(pos + 4);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int skipString(int pos) {
+        return pos + 4 + Math.max(buffer.getInt(pos), 0);
+    }
+
+    private static int checkIndex(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range [0, " + count + ")");
+        }
+        return index;
+    }
+}
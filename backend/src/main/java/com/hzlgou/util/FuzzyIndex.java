@@ -0,0 +1,395 @@
+package com.hzlgou.util;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 模糊搜索索引（SymSpell对称删除算法），用于容错的单词搜索
+ *
+ * 建索引时对每个单词（小写）前PREFIX_LENGTH个字符生成所有最多删除MAX_DISTANCE个字符的变体，
+ * 以变体的32位哈希为键记录单词序号；查询时对输入做同样的删除变体并按哈希取候选，
+ * 再用带上界的Damerau-Levenshtein（OSA）距离校验。查询只访问与输入共享删除变体的单词，不扫描整个词库。
+ *
+ * 哈希表使用开放寻址的int数组，倒排表为数组实现的单链表，避免为数百万个删除变体分配String和装箱对象。
+ * 哈希冲突只会多带入候选，最终都经过真实编辑距离校验，不影响结果正确性。
+ *
+ * 线程安全：写操作串行执行，读操作无锁。倒排条目先写入再以release更新链表头/槽位哈希发布，
+ * 读线程以acquire读取；数组扩容时复制出新数组整体替换（volatile发布）。
+ */
+public class FuzzyIndex {
+    // 支持的最大编辑距离
+    public static final int MAX_DISTANCE = 2;
+
+    // 参与生成删除变体的前缀长度
+    private static final int PREFIX_LENGTH = 7;
+
+    // 空槽位标记（哈希值为0时映射为1）
+    private static final int EMPTY = 0;
+    private static final int NO_ENTRY = -1;
+
+    // 初始容量
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 数组元素的release/acquire访问
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+
+    // 单词条目（按序号），扩容时整体替换
+    private volatile Entry[] entries = new Entry[INITIAL_CAPACITY];
+    // 已收录的单词数
+    private volatile int count;
+
+    // 小写单词 -> 序号（仅写线程访问）
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    // 哈希表：删除变体哈希 -> 倒排链表头
+    private volatile Table table = new Table(INITIAL_CAPACITY * 4);
+    private int slotCount;
+
+    // 倒排链表：条目 -> 单词序号 / 下一条目
+    private volatile Links links = new Links(INITIAL_CAPACITY * 8);
+    private int linkCount;
+
+    /**
+     * 向索引中添加一个单词，已存在的单词（忽略大小写）只更新原文和ID
+     * @param word 单词
+     * @param wordId 单词ID
+     */
+    public synchronized void insert(String word, Long wordId) {
+        if (word == null || word.isEmpty()) {
+            return;
+        }
+
+        String key = word.toLowerCase();
+        Entry entry = new Entry(word, key, wordId);
+
+        Integer existing = ordinals.get(key);
+        if (existing != null) {
+            entries[existing] = entry;
+            return;
+        }
+
+        Entry[] current = entries;
+        int ordinal = count;
+        if (ordinal == current.length) {
+            current = Arrays.copyOf(current, current.length + (current.length >> 1));
+        }
+        current[ordinal] = entry;
+        entries = current;
+        count = ordinal + 1;
+        ordinals.put(key, ordinal);
+
+        String prefix = key.length() > PREFIX_LENGTH ? key.substring(0, PREFIX_LENGTH) : key;
+        for (String delete : deletes(prefix)) {
+            addEntry(hash(delete), ordinal);
+        }
+    }
+
+    /**
+     * 搜索与输入编辑距离不超过maxDistance的单词，按距离升序排列（同距离按收录先后）
+     * @param input 输入（可能拼错的单词）
+     * @param maxDistance 最大编辑距离，超过MAX_DISTANCE时按MAX_DISTANCE处理
+     * @param limit 最多返回的数量
+     * @return 匹配的单词列表，包含word、id和distance
+     */
+    public List<Map<String, Object>> search(String input, int maxDistance, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        if (input == null || input.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        String key = input.toLowerCase();
+        int maxDist = Math.max(0, Math.min(maxDistance, MAX_DISTANCE));
+        String prefix = key.length() > PREFIX_LENGTH ? key.substring(0, PREFIX_LENGTH) : key;
+
+        // 按距离分桶收集命中的单词序号
+        List<List<Integer>> buckets = new ArrayList<>();
+        for (int d = 0; d <= maxDist; d++) {
+            buckets.add(new ArrayList<>());
+        }
+
+        // 单词条目在倒排条目之前发布，先读条目数组可能漏掉随后查到的序号，因此按需重新读取
+        Entry[] current = entries;
+        Set<Integer> verified = new HashSet<>();
+        // 编辑距离计算复用的三行DP数组
+        int[][] rows = new int[3][key.length() + maxDist + 1];
+        Set<String> visited = new HashSet<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        queue.add(prefix);
+        visited.add(prefix);
+
+        // 广度优先生成输入的删除变体，删除数超过maxDist即停止
+        while (!queue.isEmpty()) {
+            String candidate = queue.poll();
+            int deleted = prefix.length() - candidate.length();
+
+            int head = head(hash(candidate));
+            Links l = links;
+            for (int link = head; link != NO_ENTRY; link = l.next[link]) {
+                int ordinal = l.ordinals[link];
+                if (ordinal >= current.length || current[ordinal] == null) {
+                    current = entries;
+                }
+                String dictKey = current[ordinal].key;
+                // 长度差超过上界的单词不可能命中，先过滤再去重
+                if (Math.abs(dictKey.length() - key.length()) > maxDist || !verified.add(ordinal)) {
+                    continue;
+                }
+                int distance = distance(key, dictKey, maxDist, rows);
+                if (distance <= maxDist) {
+                    buckets.get(distance).add(ordinal);
+                }
+            }
+
+            if (deleted < maxDist && candidate.length() > 1) {
+                for (int i = 0; i < candidate.length(); i++) {
+                    String next = candidate.substring(0, i) + candidate.substring(i + 1);
+                    if (visited.add(next)) {
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+
+        for (int d = 0; d <= maxDist && result.size() < limit; d++) {
+            List<Integer> bucket = buckets.get(d);
+            bucket.sort(null);
+            for (int i = 0; i < bucket.size() && result.size() < limit; i++) {
+                Entry entry = current[bucket.get(i)];
+                Map<String, Object> wordInfo = new HashMap<>();
+                wordInfo.put("word", entry.word);
+                wordInfo.put("id", entry.id);
+                wordInfo.put("distance", d);
+                result.add(wordInfo);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取单词数量
+     * @return 单词数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 生成字符串所有最多删除MAX_DISTANCE个字符的不重复变体（含自身）
+     */
+    private static Set<String> deletes(String key) {
+        Set<String> result = new HashSet<>();
+        result.add(key);
+        List<String> frontier = new ArrayList<>();
+        frontier.add(key);
+        for (int d = 0; d < MAX_DISTANCE; d++) {
+            List<String> next = new ArrayList<>();
+            for (String s : frontier) {
+                if (s.length() <= 1) {
+                    continue;
+                }
+                for (int i = 0; i < s.length(); i++) {
+                    String delete = s.substring(0, i) + s.substring(i + 1);
+                    if (result.add(delete)) {
+                        next.add(delete);
+                    }
+                }
+            }
+            frontier = next;
+        }
+        return result;
+    }
+
+    /**
+     * 带上界的Damerau-Levenshtein（OSA）距离，超过上界时返回maxDistance + 1
+     */
+    private static int distance(String a, String b, int maxDistance, int[][] rows) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int[] prevPrev = rows[0];
+        int[] prev = rows[1];
+        int[] current = rows[2];
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+
+        for (int i = 1; i <= n; i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                char cb = b.charAt(j - 1);
+                int cost = ca == cb ? 0 : 1;
+                int value = Math.min(Math.min(prev[j] + 1, current[j - 1] + 1), prev[j - 1] + cost);
+                // 相邻字符换位
+                if (i > 1 && j > 1 && ca == b.charAt(j - 2) && a.charAt(i - 2) == cb) {
+                    value = Math.min(value, prevPrev[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            // 整行都超过上界，提前结束
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+            int[] recycled = prevPrev;
+            prevPrev = prev;
+            prev = current;
+            current = recycled;
+        }
+
+        return Math.min(prev[m], maxDistance + 1);
+    }
+
+    /**
+     * 32位FNV-1a哈希，0保留为空槽位标记
+     */
+    private static int hash(String s) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x01000193;
+        }
+        return h == EMPTY ? 1 : h;
+    }
+
+    /**
+     * 查找哈希对应的倒排链表头
+     */
+    private int head(int hash) {
+        Table t = table;
+        int mask = t.hashes.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int slotHash = (int) INTS.getAcquire(t.hashes, slot);
+            if (slotHash == EMPTY) {
+                return NO_ENTRY;
+            }
+            if (slotHash == hash) {
+                return (int) INTS.getAcquire(t.heads, slot);
+            }
+        }
+    }
+
+    /**
+     * 向哈希对应的倒排链表头部插入一个单词序号（仅在写锁内调用）
+     */
+    private void addEntry(int hash, int ordinal) {
+        Links l = links;
+        if (linkCount == l.ordinals.length) {
+            l = new Links(l, l.ordinals.length + (l.ordinals.length >> 1));
+            links = l;
+        }
+        Table t = table;
+        // 负载因子超过0.75时扩容
+        if ((slotCount + 1) * 4L > t.hashes.length * 3L) {
+            t = rehash(t, t.hashes.length << 1);
+            table = t;
+        }
+
+        int link = linkCount++;
+        l.ordinals[link] = ordinal;
+
+        int mask = t.hashes.length - 1;
+        int slot = mix(hash) & mask;
+        while (t.hashes[slot] != EMPTY && t.hashes[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        // 先写好条目和链表头，再以release发布
+        if (t.hashes[slot] == EMPTY) {
+            l.next[link] = NO_ENTRY;
+            t.heads[slot] = link;
+            INTS.setRelease(t.hashes, slot, hash);
+            slotCount++;
+        } else {
+            l.next[link] = t.heads[slot];
+            INTS.setRelease(t.heads, slot, link);
+        }
+    }
+
+    /**
+     * 哈希表扩容，返回完整构建好的新表
+     */
+    private static Table rehash(Table old, int capacity) {
+        Table t = new Table(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < old.hashes.length; i++) {
+            if (old.hashes[i] == EMPTY) {
+                continue;
+            }
+            int slot = mix(old.hashes[i]) & mask;
+            while (t.hashes[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            t.hashes[slot] = old.hashes[i];
+            t.heads[slot] = old.heads[i];
+        }
+        return t;
+    }
+
+    /**
+     * 打散哈希低位，减少线性探测聚集
+     */
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 单词条目（不可变）
+     */
+    private static final class Entry {
+        final String word;
+        final String key;
+        final Long id;
+
+        Entry(String word, String key, Long id) {
+            this.word = word;
+            this.key = key;
+            this.id = id;
+        }
+    }
+
+    /**
+     * 开放寻址哈希表：删除变体哈希 / 倒排链表头
+     */
+    private static final class Table {
+        final int[] hashes;
+        final int[] heads;
+
+        Table(int capacity) {
+            hashes = new int[capacity];
+            heads = new int[capacity];
+        }
+    }
+
+    /**
+     * 倒排链表数组：单词序号 / 下一条目
+     */
+    private static final class Links {
+        final int[] ordinals;
+        final int[] next;
+
+        Links(int capacity) {
+            ordinals = new int[capacity];
+            next = new int[capacity];
+        }
+
+        Links(Links from, int capacity) {
+            ordinals = Arrays.copyOf(from.ordinals, capacity);
+            next = Arrays.copyOf(from.next, capacity);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.hzlgou.util;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * 单词和短语的查找键
+ *
+ * 规范化规则：Unicode NFC，各种撇号（’ ‘ ʼ ′ ` ´）统一为ASCII撇号，转为小写，
+ * 去掉首尾空白并把连续空白合并为一个空格。数据库中的lookup_key列保存该值并建唯一索引，
+ * 大小写或撇号写法不同的查询只需一次索引查找。
+ */
+public final class LookupKey {
+
+    private LookupKey() {
+    }
+
+    /**
+     * 计算规范化的查找键
+     * @param text 单词或短语
+     * @return 查找键，text为null时返回null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return null;
+        }
+        String composed = Normalizer.isNormalized(text, Normalizer.Form.NFC)
+                ? text : Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder key = new StringBuilder(composed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < composed.length(); i++) {
+            char c = composed.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = key.length() > 0;
+                continue;
+            }
+            if (pendingSpace) {
+                key.append(' ');
+                pendingSpace = false;
+            }
+            key.append(isApostrophe(c) ? '\'' : c);
+        }
+        return key.toString().toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isApostrophe(char c) {
+        switch (c) {
+            case '\u2019': // ’
+            case '\u2018': // ‘
+            case '\u02BC': // ʼ
+            case '\u2032': // ′
+            case '`':
+            case '\u00B4': // ´
+                return true;
+            default:
+                return false;
+        }
+    }
+}
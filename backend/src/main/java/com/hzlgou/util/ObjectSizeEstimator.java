@@ -0,0 +1,118 @@
+package com.hzlgou.util;
+
+import com.hzlgou.model.Phrase;
+import com.hzlgou.model.Word;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 缓存条目的堆内存估算（64位JVM、压缩指针）
+ *
+ * 只识别缓存中实际出现的类型：字符串、数字、布尔值、Map、集合以及单词/短语实体，
+ * 其余对象按固定大小计算。结果用作Caffeine的权重，使缓存按内存预算而不是条目数淘汰，
+ * 不追求精确，只要各类条目之间的相对大小合理即可。
+ */
+public final class ObjectSizeEstimator {
+    // 对象头
+    private static final int OBJECT_HEADER = 16;
+    // 引用
+    private static final int REFERENCE = 4;
+    // String对象本身（不含字符数组）
+    private static final int STRING_SHELL = 24;
+    // 数组头
+    private static final int ARRAY_HEADER = 16;
+    // HashMap的一个节点
+    private static final int MAP_ENTRY = 32;
+    // 无法识别的对象
+    private static final int UNKNOWN_OBJECT = 64;
+    // 嵌套层数上限，防止循环引用
+    private static final int MAX_DEPTH = 8;
+
+    private ObjectSizeEstimator() {
+    }
+
+    /**
+     * 估算对象占用的字节数
+     * @param value 对象
+     * @return 字节数
+     */
+    public static long estimate(Object value) {
+        return estimate(value, 0);
+    }
+
+    /**
+     * 估算缓存条目（键 + 值）占用的字节数，用作Caffeine权重
+     * @param key 键
+     * @param value 值
+     * @return 字节数，不超过Integer.MAX_VALUE
+     */
+    public static int weigh(Object key, Object value) {
+        return (int) Math.min(Integer.MAX_VALUE, estimate(key) + estimate(value));
+    }
+
+    private static long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof CharSequence) {
+            return string((CharSequence) value);
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return OBJECT_HEADER + 8;
+        }
+        if (depth >= MAX_DEPTH) {
+            return UNKNOWN_OBJECT;
+        }
+        if (value instanceof Word) {
+            Word word = (Word) value;
+            return OBJECT_HEADER + 8 * REFERENCE + 2 * (OBJECT_HEADER + 8)
+                    + string(word.getWord()) + string(word.getLemma()) + string(word.getPronunciation())
+                    + string(word.getDerivation()) + string(word.getTip()) + string(word.getNote());
+        }
+        if (value instanceof Phrase) {
+            Phrase phrase = (Phrase) value;
+            return OBJECT_HEADER + 7 * REFERENCE + 3 * (OBJECT_HEADER + 8)
+                    + string(phrase.getPhrase()) + string(phrase.getPronunciation())
+                    + string(phrase.getDerivation()) + string(phrase.getTip());
+        }
+        if (value instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            // HashMap对象 + 桶数组（负载因子0.75）+ 节点
+            long size = OBJECT_HEADER + 32 + ARRAY_HEADER + (long) REFERENCE * map.size() * 4 / 3;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += MAP_ENTRY + estimate(entry.getKey(), depth + 1) + estimate(entry.getValue(), depth + 1);
+            }
+            return size;
+        }
+        if (value instanceof Collection) {
+            Collection<?> collection = (Collection<?>) value;
+            long size = OBJECT_HEADER + 16 + ARRAY_HEADER + (long) REFERENCE * collection.size();
+            for (Object element : collection) {
+                size += estimate(element, depth + 1);
+            }
+            return size;
+        }
+        return UNKNOWN_OBJECT;
+    }
+
+    // String对象 + byte[]（非Latin-1字符按每字符2字节计算）
+    private static long string(CharSequence value) {
+        if (value == null) {
+            return 0;
+        }
+        int bytesPerChar = 1;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return STRING_SHELL + align(ARRAY_HEADER + (long) value.length() * bytesPerChar);
+    }
+
+    // 按8字节对齐
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,411 @@
+package com.hzlgou.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 短语匹配器：以词元（token）为字母表的Aho-Corasick自动机
+ *
+ * 每个短语按与文章相同的规则分词并转为小写，构成一条词元序列，全部插入一棵词元级Trie，
+ * 再按BFS计算失败链接和输出链接。匹配时对文章词元序列做一次线性扫描，即可找出所有短语出现位置，
+ * 不受短语长度限制，也不需要为每个候选窗口拼接字符串、查询数据库。
+ *
+ * 匹配器构建后不可变，可被多个线程同时使用。匹配器由两个自动机组成：完整构建的基础自动机，
+ * 以及只包含之后新增短语的增量自动机。{@link #plus(Long, List)}只重建增量部分，代价与新增短语数有关，
+ * 与短语总数无关；增量积累到一定数量后由调用方在后台{@link #compact()}合并为一个自动机，
+ * 再用{@link #rebase(PhraseMatcher, PhraseMatcher)}补上合并期间新增的短语。
+ */
+public class PhraseMatcher {
+    // 无状态/无短语标记
+    private static final int NO_STATE = -1;
+    private static final long NO_PHRASE = -1L;
+
+    // findAll的输出顺序：按结束位置升序，同一结束位置时较长的在前
+    private static final Comparator<Match> MATCH_ORDER = Comparator.comparingInt(Match::getEnd)
+            .thenComparing(Comparator.comparingInt(Match::length).reversed());
+
+    // 完整构建的基础自动机
+    private final Automaton base;
+    // 基础自动机构建之后新增（或替换）的短语，同一ID以增量中的为准
+    private final Automaton delta;
+
+    /**
+     * 构造一个空匹配器
+     */
+    public PhraseMatcher() {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * 构造匹配器
+     * @param phrases 短语ID -> 短语的词元序列
+     */
+    public PhraseMatcher(Map<Long, List<String>> phrases) {
+        this(new Automaton(phrases), Automaton.EMPTY);
+    }
+
+    private PhraseMatcher(Automaton base, Automaton delta) {
+        this.base = base;
+        this.delta = delta;
+    }
+
+    /**
+     * 返回加入（或替换）一个短语后的新匹配器，当前匹配器不变
+     *
+     * 只重建增量自动机，基础自动机共享。
+     * @param phraseId 短语ID
+     * @param tokens 短语的词元序列
+     * @return 新的匹配器
+     */
+    public PhraseMatcher plus(Long phraseId, List<String> tokens) {
+        Map<Long, List<String>> next = new LinkedHashMap<>(delta.phrases);
+        next.put(phraseId, tokens);
+        return new PhraseMatcher(base, new Automaton(next));
+    }
+
+    /**
+     * 返回把增量短语合并进基础自动机后的新匹配器（完整重建，代价与短语总数有关）
+     * @return 新的匹配器，没有增量短语时返回当前匹配器
+     */
+    public PhraseMatcher compact() {
+        if (delta.phrases.isEmpty()) {
+            return this;
+        }
+        Map<Long, List<String>> all = new LinkedHashMap<>(base.phrases);
+        all.putAll(delta.phrases);
+        return new PhraseMatcher(new Automaton(all), Automaton.EMPTY);
+    }
+
+    /**
+     * 用合并结果替换当前匹配器：snapshot为合并时所用的匹配器，compacted为snapshot.compact()的结果，
+     * 当前匹配器在snapshot之后新增的短语重新加入compacted的增量部分
+     * @param snapshot 合并时所用的匹配器
+     * @param compacted 合并结果
+     * @return 新的匹配器；当前匹配器不是由snapshot增量得到时（期间已整体重建）返回当前匹配器
+     */
+    public PhraseMatcher rebase(PhraseMatcher snapshot, PhraseMatcher compacted) {
+        if (base != snapshot.base) {
+            return this;
+        }
+        Map<Long, List<String>> added = new LinkedHashMap<>();
+        for (Map.Entry<Long, List<String>> entry : delta.phrases.entrySet()) {
+            if (!entry.getValue().equals(snapshot.delta.phrases.get(entry.getKey()))) {
+                added.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return added.isEmpty() ? compacted : new PhraseMatcher(compacted.base, new Automaton(added));
+    }
+
+    /**
+     * 在词元序列中查找所有短语出现位置（包括相互重叠的）
+     * @param tokens 文章词元序列
+     * @return 匹配列表，按结束位置升序，同一结束位置时较长的在前
+     */
+    public List<Match> findAll(List<String> tokens) {
+        return findAll(tokens, 0, tokens.size());
+    }
+
+    /**
+     * 在词元序列的[from, to)区间内查找所有短语出现位置
+     * @param tokens 文章词元序列
+     * @param from 起始下标（包含）
+     * @param to 结束下标（不包含）
+     * @return 匹配列表，按结束位置升序，同一结束位置时较长的在前
+     */
+    public List<Match> findAll(List<String> tokens, int from, int to) {
+        List<Match> matches = base.findAll(tokens, from, to);
+        if (delta.phrases.isEmpty()) {
+            return matches;
+        }
+
+        // 两边都按结束位置升序、同一结束位置较长的在前，归并。基础自动机中被增量替换的短语，
+        // 以及与增量短语词元完全相同的短语不再输出（与完整重建时后加入的短语覆盖先前的一致）
+        List<Match> added = delta.findAll(tokens, from, to);
+        Set<Long> addedSpans = new HashSet<>();
+        for (Match match : added) {
+            addedSpans.add(key(match.getStart(), match.getEnd()));
+        }
+        List<Match> merged = new ArrayList<>(matches.size() + added.size());
+        int i = 0;
+        int j = 0;
+        while (i < matches.size() || j < added.size()) {
+            if (j == added.size() || (i < matches.size() && MATCH_ORDER.compare(matches.get(i), added.get(j)) <= 0)) {
+                Match match = matches.get(i++);
+                if (!delta.phrases.containsKey(match.getPhraseId())
+                        && !addedSpans.contains(key(match.getStart(), match.getEnd()))) {
+                    merged.add(match);
+                }
+            } else {
+                merged.add(added.get(j++));
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * 查找覆盖指定位置的最长短语（长度相同时取起点靠前的）
+     * @param tokens 文章词元序列
+     * @param index 词元下标
+     * @return 匹配结果，没有覆盖该位置的短语时返回null
+     */
+    public Match longestAt(List<String> tokens, int index) {
+        int maxLength = getMaxLength();
+        if (index < 0 || index >= tokens.size() || maxLength == 0) {
+            return null;
+        }
+
+        // 只需扫描可能覆盖该位置的窗口
+        Match best = null;
+        for (Match match : findAll(tokens, index - maxLength + 1, index + maxLength)) {
+            if (match.getStart() <= index && index < match.getEnd() && isBetter(match, best)) {
+                best = match;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 一次扫描求出每个位置被覆盖的最长短语（长度相同时取起点靠前的）
+     * @param tokens 文章词元序列
+     * @return 与词元一一对应的匹配结果，未被短语覆盖的位置为null
+     */
+    public Match[] longestCovering(List<String> tokens) {
+        Match[] longest = new Match[tokens.size()];
+        for (Match match : findAll(tokens)) {
+            for (int i = match.getStart(); i < match.getEnd(); i++) {
+                if (isBetter(match, longest[i])) {
+                    longest[i] = match;
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * 获取短语数量
+     * @return 短语数量
+     */
+    public int size() {
+        int size = base.phrases.size();
+        for (Long phraseId : delta.phrases.keySet()) {
+            if (!base.phrases.containsKey(phraseId)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 获取增量部分的短语数量（尚未合并进基础自动机）
+     * @return 增量短语数量
+     */
+    public int pendingSize() {
+        return delta.phrases.size();
+    }
+
+    /**
+     * 获取最长短语的词元数
+     * @return 最长短语的词元数
+     */
+    public int getMaxLength() {
+        return Math.max(base.maxLength, delta.maxLength);
+    }
+
+    // 更长的短语优先，长度相同时起点靠前的优先
+    private static boolean isBetter(Match match, Match best) {
+        return best == null || match.length() > best.length()
+                || (match.length() == best.length() && match.getStart() < best.getStart());
+    }
+
+    /**
+     * 词元统一转为小写，并去掉空词元
+     */
+    private static List<String> normalize(List<String> tokens) {
+        List<String> normalized = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            if (token != null && !token.isEmpty()) {
+                normalized.add(token.toLowerCase());
+            }
+        }
+        return normalized;
+    }
+
+    private static long key(int state, int tokenId) {
+        return ((long) state << 32) | (tokenId & 0xFFFFFFFFL);
+    }
+
+    /**
+     * 一个不可变的词元级Aho-Corasick自动机
+     */
+    private static final class Automaton {
+        static final Automaton EMPTY = new Automaton(Collections.emptyMap());
+
+        // 短语ID -> 小写词元序列（用于增量重建）
+        final Map<Long, List<String>> phrases;
+
+        // 词元 -> 词元编号，不在表中的词元不会出现在任何短语里
+        private final Map<String, Integer> vocabulary = new HashMap<>();
+
+        // 状态转移：(状态 << 32 | 词元编号) -> 下一状态
+        private final Map<Long, Integer> transitions = new HashMap<>();
+
+        // 按状态编号存储：失败链接、输出链接（最近的带短语的后缀状态）、深度、短语ID
+        private final int[] failure;
+        private final int[] outputLink;
+        private final int[] depth;
+        private final long[] phraseIds;
+        private int stateCount;
+
+        // 最长短语的词元数
+        int maxLength;
+
+        Automaton(Map<Long, List<String>> phrases) {
+            this.phrases = new LinkedHashMap<>();
+            int capacity = 1;
+            for (Map.Entry<Long, List<String>> entry : phrases.entrySet()) {
+                List<String> tokens = normalize(entry.getValue());
+                if (entry.getKey() != null && !tokens.isEmpty()) {
+                    this.phrases.put(entry.getKey(), tokens);
+                    capacity += tokens.size();
+                }
+            }
+
+            failure = new int[capacity];
+            outputLink = new int[capacity];
+            depth = new int[capacity];
+            phraseIds = new long[capacity];
+            build();
+        }
+
+        // 在[from, to)区间内查找所有短语出现位置，按结束位置升序，同一结束位置时较长的在前
+        List<Match> findAll(List<String> tokens, int from, int to) {
+            List<Match> matches = new ArrayList<>();
+            if (phrases.isEmpty()) {
+                return matches;
+            }
+
+            int state = 0;
+            for (int i = Math.max(0, from); i < Math.min(to, tokens.size()); i++) {
+                Integer tokenId = vocabulary.get(tokens.get(i).toLowerCase());
+                if (tokenId == null) {
+                    // 词元不在任何短语中，直接回到根状态
+                    state = 0;
+                    continue;
+                }
+
+                state = next(state, tokenId);
+                for (int s = phraseIds[state] != NO_PHRASE ? state : outputLink[state]; s != NO_STATE; s = outputLink[s]) {
+                    matches.add(new Match(i - depth[s] + 1, i + 1, phraseIds[s]));
+                }
+            }
+
+            return matches;
+        }
+
+        /**
+         * 构建Trie、失败链接和输出链接
+         */
+        private void build() {
+            Arrays.fill(phraseIds, NO_PHRASE);
+            stateCount = 1;
+            List<List<Integer>> children = new ArrayList<>();
+            children.add(new ArrayList<>());
+
+            for (Map.Entry<Long, List<String>> entry : phrases.entrySet()) {
+                int state = 0;
+                for (String token : entry.getValue()) {
+                    int tokenId = vocabulary.computeIfAbsent(token, t -> vocabulary.size());
+                    long key = key(state, tokenId);
+                    Integer child = transitions.get(key);
+                    if (child == null) {
+                        child = stateCount++;
+                        transitions.put(key, child);
+                        depth[child] = depth[state] + 1;
+                        children.get(state).add(tokenId);
+                        children.add(new ArrayList<>());
+                    }
+                    state = child;
+                }
+                phraseIds[state] = entry.getKey();
+                maxLength = Math.max(maxLength, entry.getValue().size());
+            }
+
+            // BFS计算失败链接：子状态的失败链接为父状态失败链接沿同一词元的转移
+            failure[0] = 0;
+            outputLink[0] = NO_STATE;
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            for (int tokenId : children.get(0)) {
+                int child = transitions.get(key(0, tokenId));
+                failure[child] = 0;
+                outputLink[child] = NO_STATE;
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (int tokenId : children.get(state)) {
+                    int child = transitions.get(key(state, tokenId));
+                    int fail = next(failure[state], tokenId);
+                    failure[child] = fail;
+                    outputLink[child] = phraseIds[fail] != NO_PHRASE ? fail : outputLink[fail];
+                    queue.add(child);
+                }
+            }
+        }
+
+        /**
+         * 沿失败链接求状态转移
+         */
+        private int next(int state, int tokenId) {
+            while (true) {
+                Integer child = transitions.get(key(state, tokenId));
+                if (child != null) {
+                    return child;
+                }
+                if (state == 0) {
+                    return 0;
+                }
+                state = failure[state];
+            }
+        }
+    }
+
+    /**
+     * 一次短语匹配：词元区间[start, end)
+     */
+    public static final class Match {
+        private final int start;
+        private final int end;
+        private final long phraseId;
+
+        Match(int start, int end, long phraseId) {
+            this.start = start;
+            this.end = end;
+            this.phraseId = phraseId;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public long getPhraseId() {
+            return phraseId;
+        }
+
+        public int length() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+package com.hzlgou.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 子串索引（n-gram倒排索引），用于高效的子串搜索
+ *
+ * 每个单词按小写形式拆分为所有长度为1~3的n-gram，每个n-gram对应一个按单词序号升序排列的倒排表。
+ * 长度不超过3的查询直接返回对应倒排表；更长的查询取其所有3-gram倒排表求交集，再对候选做一次contains校验。
+ * 查询代价取决于最短倒排表的长度（即命中数量的量级），而不是词库大小。
+ *
+ * 线程安全：写操作串行执行，读操作无锁。单词条目为不可变对象，倒排表只追加，
+ * 先写入元素再以volatile更新长度发布，读线程只访问已发布长度以内的元素。
+ */
+public class SubstringIndex {
+    // n-gram最大长度
+    private static final int MAX_GRAM = 3;
+
+    // 初始容量
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 单词条目（按序号），扩容时整体替换
+    private volatile Entry[] entries = new Entry[INITIAL_CAPACITY];
+    // 已收录的单词数
+    private volatile int count;
+
+    // 小写单词 -> 序号（仅写线程访问）
+    private final Map<String, Integer> ordinals = new HashMap<>();
+
+    // n-gram -> 倒排表
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+
+    /**
+     * 向索引中添加一个单词，已存在的单词（忽略大小写）只更新原文和ID
+     * @param word 单词
+     * @param wordId 单词ID
+     */
+    public synchronized void insert(String word, Long wordId) {
+        if (word == null || word.isEmpty()) {
+            return;
+        }
+
+        String key = word.toLowerCase();
+        Entry entry = new Entry(word, key, wordId);
+
+        Integer existing = ordinals.get(key);
+        if (existing != null) {
+            entries[existing] = entry;
+            return;
+        }
+
+        Entry[] current = entries;
+        int ordinal = count;
+        if (ordinal == current.length) {
+            current = Arrays.copyOf(current, current.length + (current.length >> 1));
+        }
+        current[ordinal] = entry;
+        entries = current;
+        count = ordinal + 1;
+        ordinals.put(key, ordinal);
+
+        // 同一单词内重复出现的n-gram只记录一次
+        for (String gram : grams(key)) {
+            postings.computeIfAbsent(gram, g -> new Postings()).add(ordinal);
+        }
+    }
+
+    /**
+     * 搜索包含特定子串的所有单词
+     * @param substring 子串
+     * @return 包含该子串的所有单词列表
+     */
+    public List<Map<String, Object>> search(String substring) {
+        return search(substring, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 搜索包含特定子串的单词，取够limit个即停止
+     * @param substring 子串
+     * @param limit 最多返回的数量
+     * @return 包含该子串的单词列表（按收录先后排列）
+     */
+    public List<Map<String, Object>> search(String substring, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        if (substring == null || substring.isEmpty() || limit <= 0) {
+            return result;
+        }
+
+        String query = substring.toLowerCase();
+
+        // 短查询：倒排表本身就是精确结果
+        if (query.length() <= MAX_GRAM) {
+            Postings list = postings.get(query);
+            if (list != null) {
+                View view = list.view();
+                // 倒排表发布之后再读取条目数组，保证能看到其中的所有序号
+                Entry[] current = entries;
+                for (int i = 0; i < view.length && result.size() < limit; i++) {
+                    result.add(current[view.data[i]].toWordInfo());
+                }
+            }
+            return result;
+        }
+
+        // 长查询：按倒排表长度从短到长求交集
+        List<View> lists = new ArrayList<>();
+        for (int i = 0; i + MAX_GRAM <= query.length(); i++) {
+            Postings list = postings.get(query.substring(i, i + MAX_GRAM));
+            if (list == null) {
+                return result;
+            }
+            lists.add(list.view());
+        }
+        lists.sort((a, b) -> Integer.compare(a.length, b.length));
+
+        int[] candidates = Arrays.copyOf(lists.get(0).data, lists.get(0).length);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < lists.size() && candidateCount > 0; i++) {
+            candidateCount = intersect(candidates, candidateCount, lists.get(i));
+        }
+
+        // 校验候选（3-gram全部命中不代表按顺序连续出现）
+        Entry[] current = entries;
+        for (int i = 0; i < candidateCount && result.size() < limit; i++) {
+            Entry entry = current[candidates[i]];
+            if (entry.key.contains(query)) {
+                result.add(entry.toWordInfo());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取单词数量
+     * @return 单词数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 拆分出单词的所有不重复n-gram
+     */
+    private static Set<String> grams(String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int length = 1; length <= MAX_GRAM; length++) {
+            for (int i = 0; i + length <= key.length(); i++) {
+                grams.add(key.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 有序数组原地求交集
+     * @return 交集元素个数
+     */
+    private static int intersect(int[] candidates, int candidateCount, View list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < candidateCount && j < list.length; i++) {
+            int value = candidates[i];
+            while (j < list.length && list.data[j] < value) {
+                j++;
+            }
+            if (j < list.length && list.data[j] == value) {
+                candidates[kept++] = value;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * 单词条目（不可变）
+     */
+    private static final class Entry {
+        final String word;
+        final String key;
+        final Long id;
+
+        Entry(String word, String key, Long id) {
+            this.word = word;
+            this.key = key;
+            this.id = id;
+        }
+
+        Map<String, Object> toWordInfo() {
+            Map<String, Object> wordInfo = new HashMap<>();
+            wordInfo.put("word", word);
+            wordInfo.put("id", id);
+            return wordInfo;
+        }
+    }
+
+    /**
+     * 倒排表：按序号升序追加的int数组
+     */
+    private static final class Postings {
+        private volatile int[] data = new int[4];
+        private volatile int size;
+
+        // 仅写线程调用
+        void add(int ordinal) {
+            int[] current = data;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size << 1);
+                data = current;
+            }
+            current[size] = ordinal;
+            size = size + 1;
+        }
+
+        // 先读长度再读数组：数组中该长度以内的元素都已写入
+        View view() {
+            int length = size;
+            return new View(data, length);
+        }
+    }
+
+    /**
+     * 倒排表某一时刻的只读视图
+     */
+    private static final class View {
+        final int[] data;
+        final int length;
+
+        View(int[] data, int length) {
+            this.data = data;
+            this.length = length;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.hzlgou.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 分词器：手写的单遍扫描器，替代正则表达式 \w+|[.,!?;:'"()\[\]{}\-]
+ *
+ * 逐个字符扫描文本，把连续的单词字符（ASCII字母、数字、下划线）作为一个词元，
+ * 上述标点符号各自作为一个词元，其余字符（空白等）跳过，切分结果与原正则完全一致。
+ * 扫描结果以基本类型数组记录每个词元在原文中的起止位置和类型，不为词元创建字符串，
+ * 需要时再按位置取出文本，可直接用于短语匹配和前端高亮。
+ */
+public final class Tokenizer {
+    // 初始容量
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 作为独立词元的标点符号
+    private static final String PUNCTUATION = ".,!?;:'\"()[]{}-";
+
+    /**
+     * 词元类型
+     */
+    public enum TokenType {
+        // 单词（含字母或下划线，可能混有数字）
+        WORD,
+        // 纯数字
+        NUMBER,
+        // 标点符号
+        PUNCTUATION
+    }
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private Tokenizer() {
+    }
+
+    /**
+     * 扫描文本，得到所有词元的位置和类型
+     * @param text 文本
+     * @return 词元序列
+     */
+    public static TokenSpans scan(String text) {
+        TokenSpans spans = new TokenSpans();
+        if (text == null) {
+            return spans;
+        }
+
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (isWordChar(c)) {
+                int start = i;
+                boolean lettersOnly = true;
+                boolean digitsOnly = true;
+                do {
+                    lettersOnly &= isAsciiLetter(c);
+                    digitsOnly &= c >= '0' && c <= '9';
+                    i++;
+                } while (i < length && isWordChar(c = text.charAt(i)));
+                spans.add(start, i, digitsOnly ? TokenType.NUMBER : TokenType.WORD, lettersOnly);
+            } else {
+                if (PUNCTUATION.indexOf(c) >= 0) {
+                    spans.add(i, i + 1, TokenType.PUNCTUATION, false);
+                }
+                i++;
+            }
+        }
+        spans.text = text;
+        return spans;
+    }
+
+    /**
+     * 分词，返回词元文本列表
+     * @param text 文本
+     * @return 词元列表
+     */
+    public static List<String> tokenize(String text) {
+        return scan(text).texts();
+    }
+
+    /**
+     * 判断词元是否只由ASCII字母组成（等价于 token.matches("[a-zA-Z]+")）
+     * @param token 词元
+     * @return 是否为纯字母单词
+     */
+    public static boolean isLetters(String token) {
+        if (token == null || token.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (!isAsciiLetter(token.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 对应正则中的\w（非UNICODE_CHARACTER_CLASS模式）
+    private static boolean isWordChar(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    /**
+     * 词元序列：按顺序记录每个词元的起止位置（左闭右开）和类型
+     */
+    public static final class TokenSpans {
+        // 原文
+        private String text = "";
+        private int[] starts = new int[INITIAL_CAPACITY];
+        private int[] ends = new int[INITIAL_CAPACITY];
+        // 低2位为类型序号，第3位表示纯字母
+        private byte[] flags = new byte[INITIAL_CAPACITY];
+        private int size;
+
+        private void add(int start, int end, TokenType type, boolean lettersOnly) {
+            if (size == starts.length) {
+                int capacity = size + (size >> 1);
+                starts = Arrays.copyOf(starts, capacity);
+                ends = Arrays.copyOf(ends, capacity);
+                flags = Arrays.copyOf(flags, capacity);
+            }
+            starts[size] = start;
+            ends[size] = end;
+            flags[size] = (byte) (type.ordinal() | (lettersOnly ? 4 : 0));
+            size++;
+        }
+
+        /**
+         * 获取词元数量
+         * @return 词元数量
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * 获取词元在原文中的起始位置（包含）
+         */
+        public int start(int index) {
+            return starts[index];
+        }
+
+        /**
+         * 获取词元在原文中的结束位置（不包含）
+         */
+        public int end(int index) {
+            return ends[index];
+        }
+
+        /**
+         * 获取词元类型
+         */
+        public TokenType type(int index) {
+            return TYPES[flags[index] & 3];
+        }
+
+        /**
+         * 判断词元是否只由ASCII字母组成
+         */
+        public boolean isLetters(int index) {
+            return (flags[index] & 4) != 0;
+        }
+
+        /**
+         * 取出词元文本
+         */
+        public String text(int index) {
+            return text.substring(starts[index], ends[index]);
+        }
+
+        /**
+         * 取出所有词元文本
+         * @return 词元列表
+         */
+        public List<String> texts() {
+            List<String> texts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                texts.add(text(i));
+            }
+            return texts;
+        }
+    }
+}
@@ -1,68 +1,105 @@
 package com.hzlgou.util;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 
 /**
  * 前缀树（Trie树）实现，用于高效的单词搜索
+ *
+ * 节点采用"左孩子-右兄弟"的紧凑数组布局：每个节点只占用数组中的一个下标，
+ * 兄弟节点按字符升序串联，单词ID使用基本类型long存储（-1表示非单词结尾），
+ * 避免每个节点分配HashMap以及Character/Long装箱对象。
+ *
+ * 每个单词可以带一个优先级分数（如词频），每个节点缓存其子树内的最高分数，
+ * 前缀Top-K查询据此做最佳优先遍历，取够K个结果即停止，耗时与前缀长短无关。
+ *
+ * 线程安全：写操作（insert）串行执行，读操作无锁。新节点先在数组中完整初始化，
+ * 再通过release写入父节点/兄弟节点的链接发布，读线程以acquire读取链接，因此只会看到完整的节点；
+ * 扩容时复制出新的节点数组整体替换（volatile发布），正在读取旧数组的线程看到的是扩容前的一致快照。
+ * 子树最高分数允许读到旧值，并发写入期间Top-K排序可能短暂不精确，但不会返回错误的单词。
  */
 public class Trie {
-    // 前缀树节点
-    private static class TrieNode {
-        // 子节点映射
-        Map<Character, TrieNode> children;
-        // 是否是单词的结束
-        boolean isEndOfWord;
-        // 单词（如果是结束节点）
-        String word;
-        // 单词ID
-        Long wordId;
-        
-        TrieNode() {
-            children = new HashMap<>();
-            isEndOfWord = false;
-            word = null;
-            wordId = null;
-        }
-    }
-    
-    // 根节点
-    private final TrieNode root;
-    
+    // 无效节点/无单词ID标记
+    private static final int NO_NODE = -1;
+    private static final long NO_WORD = -1L;
+
+    // 初始节点容量
+    private static final int INITIAL_CAPACITY = 64;
+
+    // 数组元素的release/acquire访问
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle STRINGS = MethodHandles.arrayElementVarHandle(String[].class);
+
+    // 当前节点数组（扩容时整体替换）
+    private volatile Nodes nodes;
+
+    // 已使用的节点数（下标0为根节点）
+    private volatile int nodeCount;
+    // 单词数
+    private volatile int wordCount;
+
     /**
      * 构造函数
      */
     public Trie() {
-        root = new TrieNode();
+        nodes = new Nodes(INITIAL_CAPACITY);
+        // 创建根节点
+        newNode('\0');
     }
-    
+
     /**
      * 向Trie树中插入一个单词
      * @param word 要插入的单词
      * @param wordId 单词ID
      */
     public void insert(String word, Long wordId) {
+        insert(word, wordId, 0);
+    }
+
+    /**
+     * 向Trie树中插入一个带优先级分数的单词
+     * @param word 要插入的单词
+     * @param wordId 单词ID
+     * @param score 优先级分数，越大越靠前
+     */
+    public synchronized void insert(String word, Long wordId, int score) {
         if (word == null || word.isEmpty()) {
             return;
         }
-        
-        TrieNode current = root;
-        
-        for (char c : word.toLowerCase().toCharArray()) {
+
+        String key = word.toLowerCase();
+        // 记录路径，用于回溯更新子树最高分
+        int[] path = new int[key.length() + 1];
+        int current = 0;
+
+        for (int i = 0; i < key.length(); i++) {
             // 如果当前字符不存在，创建新节点
-            current.children.putIfAbsent(c, new TrieNode());
-            // 移动到下一个节点
-            current = current.children.get(c);
+            current = getOrCreateChild(current, key.charAt(i));
+            path[i + 1] = current;
+        }
+
+        // 标记单词结束：先写ID和分数，最后release发布单词原文
+        Nodes n = nodes;
+        if (n.words[current] == null) {
+            wordCount++;
+        }
+        LONGS.setRelease(n.wordIds, current, wordId != null ? wordId : NO_WORD);
+        n.scores[current] = score;
+        STRINGS.setRelease(n.words, current, word);
+
+        // 自底向上重新计算路径上各节点的子树最高分（分数可能被调低）
+        for (int i = path.length - 1; i >= 0; i--) {
+            n.maxScores[path[i]] = computeMaxScore(n, path[i]);
         }
-        
-        // 标记单词结束
-        current.isEndOfWord = true;
-        current.word = word;
-        current.wordId = wordId;
     }
-    
+
     /**
      * 搜索单词是否存在于Trie树中
      * @param word 要搜索的单词
@@ -72,19 +109,12 @@ public class Trie {
         if (word == null || word.isEmpty()) {
             return false;
         }
-        
-        TrieNode current = root;
-        
-        for (char c : word.toLowerCase().toCharArray()) {
-            current = current.children.get(c);
-            if (current == null) {
-                return false;
-            }
-        }
-        
-        return current.isEndOfWord;
+
+        Nodes n = nodes;
+        int node = findNode(n, word.toLowerCase());
+        return node != NO_NODE && wordAt(n, node) != null;
     }
-    
+
     /**
      * 根据前缀搜索所有单词
      * @param prefix 前缀
@@ -92,45 +122,67 @@ public class Trie {
      */
     public List<Map<String, Object>> searchByPrefix(String prefix) {
         List<Map<String, Object>> result = new ArrayList<>();
-        
+
         if (prefix == null || prefix.isEmpty()) {
             return result;
         }
-        
-        TrieNode current = root;
-        
+
         // 先找到前缀的最后一个节点
-        for (char c : prefix.toLowerCase().toCharArray()) {
-            current = current.children.get(c);
-            if (current == null) {
-                return result;
-            }
+        Nodes n = nodes;
+        int node = findNode(n, prefix.toLowerCase());
+        if (node == NO_NODE) {
+            return result;
         }
-        
+
         // 从该节点开始遍历所有单词
-        collectWords(current, result);
-        
+        collectWords(n, node, result);
+
         return result;
     }
-    
+
     /**
-     * 收集从当前节点开始的所有单词
-     * @param node 当前节点
-     * @param result 结果列表
+     * 根据前缀搜索分数最高的K个单词，按分数降序排列（同分按插入先后）
+     * @param prefix 前缀
+     * @param limit 最多返回的数量
+     * @return 以该前缀开头、分数最高的单词列表
      */
-    private void collectWords(TrieNode node, List<Map<String, Object>> result) {
-        if (node.isEndOfWord) {
-            Map<String, Object> wordInfo = new HashMap<>();
-            wordInfo.put("word", node.word);
-            wordInfo.put("id", node.wordId);
-            result.add(wordInfo);
+    public List<Map<String, Object>> searchTopKByPrefix(String prefix, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+
+        if (prefix == null || prefix.isEmpty() || limit <= 0) {
+            return result;
         }
-        
-        for (TrieNode child : node.children.values()) {
-            collectWords(child, result);
+
+        Nodes n = nodes;
+        int start = findNode(n, prefix.toLowerCase());
+        if (start == NO_NODE || n.maxScores[start] == Integer.MIN_VALUE) {
+            return result;
+        }
+
+        // 最佳优先遍历：子树条目以子树最高分为键，单词条目以自身分数为键
+        PriorityQueue<long[]> queue = new PriorityQueue<>(Trie::compareEntries);
+        queue.add(entry(n.maxScores[start], start, false));
+
+        while (!queue.isEmpty() && result.size() < limit) {
+            long[] top = queue.poll();
+            int node = (int) top[1];
+            if (top[2] == 1) {
+                result.add(toWordInfo(n, node));
+                continue;
+            }
+            if (wordAt(n, node) != null) {
+                queue.add(entry(n.scores[node], node, true));
+            }
+            for (int child = firstChildOf(n, node); child != NO_NODE; child = nextSiblingOf(n, child)) {
+                if (n.maxScores[child] != Integer.MIN_VALUE) {
+                    queue.add(entry(n.maxScores[child], child, false));
+                }
+            }
         }
+
+        return result;
     }
-    
+
     /**
      * 搜索包含特定子串的所有单词
      * @param substring 子串
@@ -138,43 +190,268 @@ public class Trie {
      */
     public List<Map<String, Object>> searchBySubstring(String substring) {
         List<Map<String, Object>> result = new ArrayList<>();
-        
+
         if (substring == null || substring.isEmpty()) {
             return result;
         }
-        
+
         // 遍历所有单词，查找包含子串的单词
-        collectAllWords(root, substring.toLowerCase(), result);
-        
+        String lowercaseSubstring = substring.toLowerCase();
+        Nodes n = nodes;
+        int count = Math.min(nodeCount, n.labels.length);
+        for (int node = 1; node < count; node++) {
+            String word = wordAt(n, node);
+            if (word != null && word.toLowerCase().contains(lowercaseSubstring)) {
+                result.add(toWordInfo(n, node));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * 获取Trie树中所有的单词
+     * @return 所有单词列表
+     */
+    public List<Map<String, Object>> getAllWords() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        collectWords(nodes, 0, result);
         return result;
     }
-    
+
     /**
-     * 收集所有包含特定子串的单词
+     * 获取单词数量
+     * @return 单词数量
+     */
+    public int size() {
+        return wordCount;
+    }
+
+    /**
+     * 获取节点数量（含根节点）
+     * @return 节点数量
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * 估算当前紧凑布局占用的堆内存（字节），不含单词字符串本身
+     * @return 估算字节数
+     */
+    public long estimateMemoryBytes() {
+        int capacity = nodes.labels.length;
+        // 7个数组对象头 + 各数组元素（引用按压缩指针4字节计算）
+        return 7L * 16 + capacity * (2L + 4 + 4 + 8 + 4 + 4 + 4);
+    }
+
+    /**
+     * 估算相同内容在旧的HashMap<Character, TrieNode>布局下占用的堆内存（字节），
+     * 用于和紧凑布局做对比，同样不含单词字符串本身
+     * @return 估算字节数
+     */
+    public long estimateHashMapMemoryBytes() {
+        // 每个节点：TrieNode对象(24) + HashMap对象(48)
+        // 每个有子节点的节点：HashMap默认16槽位的哈希表(80)
+        // 每条边：HashMap.Node(32)，ASCII字符的Character装箱有缓存，不计入
+        // 每个单词结尾：Long装箱(24)
+        Nodes n = nodes;
+        int count = Math.min(nodeCount, n.labels.length);
+        long internalNodes = 0;
+        for (int node = 0; node < count; node++) {
+            if (firstChildOf(n, node) != NO_NODE) {
+                internalNodes++;
+            }
+        }
+        long edges = count - 1L;
+        return count * (24L + 48) + internalNodes * 80 + edges * 32 + wordCount * 24L;
+    }
+
+    /**
+     * 沿着key查找节点
+     * @param key 已转为小写的键
+     * @return 节点下标，不存在返回NO_NODE
+     */
+    private static int findNode(Nodes n, String key) {
+        int current = 0;
+        for (int i = 0; i < key.length(); i++) {
+            current = findChild(n, current, key.charAt(i));
+            if (current == NO_NODE) {
+                return NO_NODE;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 在子节点链表中查找字符对应的子节点
+     */
+    private static int findChild(Nodes n, int parent, char c) {
+        int child = firstChildOf(n, parent);
+        // 兄弟节点按字符升序排列，遇到更大的字符即可提前结束
+        while (child != NO_NODE && n.labels[child] < c) {
+            child = nextSiblingOf(n, child);
+        }
+        return child != NO_NODE && n.labels[child] == c ? child : NO_NODE;
+    }
+
+    /**
+     * 查找或创建字符对应的子节点，保持兄弟链表有序（仅在写锁内调用）
+     */
+    private int getOrCreateChild(int parent, char c) {
+        Nodes n = nodes;
+        int prev = NO_NODE;
+        int child = n.firstChild[parent];
+        while (child != NO_NODE && n.labels[child] < c) {
+            prev = child;
+            child = n.nextSibling[child];
+        }
+        if (child != NO_NODE && n.labels[child] == c) {
+            return child;
+        }
+
+        // 新节点可能触发扩容，需重新获取节点数组
+        int created = newNode(c);
+        n = nodes;
+        n.nextSibling[created] = child;
+        // 节点完整初始化后再发布链接
+        if (prev == NO_NODE) {
+            INTS.setRelease(n.firstChild, parent, created);
+        } else {
+            INTS.setRelease(n.nextSibling, prev, created);
+        }
+        return created;
+    }
+
+    /**
+     * 分配一个新节点（仅在写锁内或构造函数中调用）
+     */
+    private int newNode(char c) {
+        Nodes n = nodes;
+        int node = nodeCount;
+        if (node == n.labels.length) {
+            n = new Nodes(n, n.labels.length + (n.labels.length >> 1));
+            nodes = n;
+        }
+        n.labels[node] = c;
+        n.firstChild[node] = NO_NODE;
+        n.nextSibling[node] = NO_NODE;
+        n.wordIds[node] = NO_WORD;
+        n.words[node] = null;
+        n.scores[node] = 0;
+        n.maxScores[node] = Integer.MIN_VALUE;
+        nodeCount = node + 1;
+        return node;
+    }
+
+    /**
+     * 计算节点子树（含自身）内的最高分数
+     */
+    private static int computeMaxScore(Nodes n, int node) {
+        int max = n.words[node] != null ? n.scores[node] : Integer.MIN_VALUE;
+        for (int child = n.firstChild[node]; child != NO_NODE; child = n.nextSibling[child]) {
+            max = Math.max(max, n.maxScores[child]);
+        }
+        return max;
+    }
+
+    /**
+     * 构建优先队列条目：{分数, 节点, 是否为单词条目}
+     */
+    private static long[] entry(int score, int node, boolean isWord) {
+        return new long[] {score, node, isWord ? 1 : 0};
+    }
+
+    /**
+     * 优先队列排序：分数高的优先；同分时单词条目先于子树条目、下标小（插入早）的优先
+     */
+    private static int compareEntries(long[] a, long[] b) {
+        if (a[0] != b[0]) {
+            return Long.compare(b[0], a[0]);
+        }
+        if (a[2] != b[2]) {
+            return Long.compare(b[2], a[2]);
+        }
+        return Long.compare(a[1], b[1]);
+    }
+
+    /**
+     * 收集从当前节点开始的所有单词（按字母顺序）
      * @param node 当前节点
-     * @param substring 要查找的子串
      * @param result 结果列表
      */
-    private void collectAllWords(TrieNode node, String substring, List<Map<String, Object>> result) {
-        if (node.isEndOfWord && node.word.toLowerCase().contains(substring)) {
-            Map<String, Object> wordInfo = new HashMap<>();
-            wordInfo.put("word", node.word);
-            wordInfo.put("id", node.wordId);
-            result.add(wordInfo);
+    private static void collectWords(Nodes n, int node, List<Map<String, Object>> result) {
+        if (wordAt(n, node) != null) {
+            result.add(toWordInfo(n, node));
         }
-        
-        for (TrieNode child : node.children.values()) {
-            collectAllWords(child, substring, result);
+
+        for (int child = firstChildOf(n, node); child != NO_NODE; child = nextSiblingOf(n, child)) {
+            collectWords(n, child, result);
         }
     }
-    
+
     /**
-     * 获取Trie树中所有的单词
-     * @return 所有单词列表
+     * 构建单词结果
      */
-    public List<Map<String, Object>> getAllWords() {
-        List<Map<String, Object>> result = new ArrayList<>();
-        collectWords(root, result);
-        return result;
+    private static Map<String, Object> toWordInfo(Nodes n, int node) {
+        long wordId = (long) LONGS.getAcquire(n.wordIds, node);
+        Map<String, Object> wordInfo = new HashMap<>();
+        wordInfo.put("word", wordAt(n, node));
+        wordInfo.put("id", wordId == NO_WORD ? null : wordId);
+        return wordInfo;
+    }
+
+    // 以acquire语义读取链接和单词，与写线程的release写入配对
+
+    private static int firstChildOf(Nodes n, int node) {
+        return (int) INTS.getAcquire(n.firstChild, node);
+    }
+
+    private static int nextSiblingOf(Nodes n, int node) {
+        return (int) INTS.getAcquire(n.nextSibling, node);
+    }
+
+    private static String wordAt(Nodes n, int node) {
+        return (String) STRINGS.getAcquire(n.words, node);
+    }
+
+    /**
+     * 节点数组集合，扩容时整体复制替换
+     */
+    private static final class Nodes {
+        // 节点字符
+        final char[] labels;
+        // 第一个子节点下标
+        final int[] firstChild;
+        // 下一个兄弟节点下标（兄弟之间按字符升序排列）
+        final int[] nextSibling;
+        // 单词ID（非单词结尾为NO_WORD）
+        final long[] wordIds;
+        // 单词原文（非单词结尾为null）
+        final String[] words;
+        // 单词优先级分数
+        final int[] scores;
+        // 子树（含自身）内单词的最高分数，无单词时为Integer.MIN_VALUE
+        final int[] maxScores;
+
+        Nodes(int capacity) {
+            labels = new char[capacity];
+            firstChild = new int[capacity];
+            nextSibling = new int[capacity];
+            wordIds = new long[capacity];
+            words = new String[capacity];
+            scores = new int[capacity];
+            maxScores = new int[capacity];
+        }
+
+        Nodes(Nodes from, int capacity) {
+            labels = Arrays.copyOf(from.labels, capacity);
+            firstChild = Arrays.copyOf(from.firstChild, capacity);
+            nextSibling = Arrays.copyOf(from.nextSibling, capacity);
+            wordIds = Arrays.copyOf(from.wordIds, capacity);
+            words = Arrays.copyOf(from.words, capacity);
+            scores = Arrays.copyOf(from.scores, capacity);
+            maxScores = Arrays.copyOf(from.maxScores, capacity);
+        }
     }
-}
\ No newline at end of file
+}
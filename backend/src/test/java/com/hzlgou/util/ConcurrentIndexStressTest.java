@@ -0,0 +1,143 @@
+package com.hzlgou.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 一个写线程插入单词的同时多个读线程无锁查询，验证Trie、SubstringIndex、FuzzyIndex的发布顺序：
+ * 写线程插入完成后才公布的单词，读线程的前缀、Top-K、子串、模糊查询都必须能看到，且不抛出异常
+ */
+class ConcurrentIndexStressTest {
+
+    private static final int WORDS = 10_000;
+    private static final int READERS = 4;
+
+    @Test
+    void readersSeeEveryPublishedWordWhileWriterInserts() throws InterruptedException {
+        List<String> words = randomWords(WORDS, 42);
+        Trie trie = new Trie();
+        SubstringIndex substringIndex = new SubstringIndex();
+        FuzzyIndex fuzzyIndex = new FuzzyIndex();
+
+        // 已插入全部索引的单词数；写线程插入完成后才递增
+        AtomicInteger published = new AtomicInteger();
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicLong checks = new AtomicLong();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(READERS + 1);
+        executor.submit(() -> {
+            try {
+                start.await();
+                for (int i = 0; i < words.size(); i++) {
+                    String word = words.get(i);
+                    trie.insert(word, (long) i, i % 100);
+                    substringIndex.insert(word, (long) i);
+                    fuzzyIndex.insert(word, (long) i);
+                    published.set(i + 1);
+                }
+            } catch (Throwable t) {
+                failures.add(t);
+            } finally {
+                done.set(true);
+            }
+            return null;
+        });
+        for (int r = 0; r < READERS; r++) {
+            long seed = r;
+            executor.submit(() -> {
+                Random random = new Random(seed);
+                try {
+                    start.await();
+                    while (!done.get() && failures.isEmpty()) {
+                        int count = published.get();
+                        if (count == 0) {
+                            continue;
+                        }
+                        // 偏向最近发布的单词，它们最可能暴露发布顺序问题
+                        int index = random.nextBoolean() ? count - 1 : random.nextInt(count);
+                        verify(words.get(index), index, trie, substringIndex, fuzzyIndex);
+                        checks.incrementAndGet();
+                    }
+                } catch (Throwable t) {
+                    failures.add(t);
+                }
+                return null;
+            });
+        }
+
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES), "stress test timed out");
+
+        if (!failures.isEmpty()) {
+            AssertionError error = new AssertionError(failures.size() + " reader/writer failures");
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+        assertTrue(checks.get() > 0, "readers never ran");
+        assertEquals(WORDS, trie.size());
+        assertEquals(WORDS, substringIndex.size());
+        assertEquals(WORDS, fuzzyIndex.size());
+        for (int i = 0; i < words.size(); i++) {
+            verify(words.get(i), i, trie, substringIndex, fuzzyIndex);
+        }
+    }
+
+    private static void verify(String word, long id, Trie trie, SubstringIndex substringIndex, FuzzyIndex fuzzyIndex) {
+        assertTrue(trie.search(word), () -> "trie search missed " + word);
+        assertTrue(contains(trie.searchByPrefix(word), word, id), () -> "prefix search missed " + word);
+        assertTrue(contains(trie.searchTopKByPrefix(word, Integer.MAX_VALUE), word, id),
+                () -> "top-K search missed " + word);
+        assertTrue(contains(substringIndex.search(word), word, id), () -> "substring search missed " + word);
+        String middle = word.substring(1, word.length() - 1);
+        assertTrue(contains(substringIndex.search(middle), word, id), () -> "substring search missed " + middle);
+        assertTrue(contains(fuzzyIndex.search(word, 0, Integer.MAX_VALUE), word, id),
+                () -> "fuzzy search missed " + word);
+        String typo = word.substring(0, word.length() - 1) + (word.charAt(word.length() - 1) == 'z' ? 'y' : 'z');
+        assertTrue(contains(fuzzyIndex.search(typo, 1, Integer.MAX_VALUE), word, id),
+                () -> "fuzzy search missed " + word + " for " + typo);
+    }
+
+    private static boolean contains(List<Map<String, Object>> results, String word, long id) {
+        for (Map<String, Object> result : results) {
+            if (word.equals(result.get("word")) && Long.valueOf(id).equals(result.get("id"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 不重复的小写单词，长度3到10，前缀大量重叠以产生兄弟节点链和数组扩容
+    private static List<String> randomWords(int count, long seed) {
+        Random random = new Random(seed);
+        Set<String> words = new LinkedHashSet<>();
+        while (words.size() < count) {
+            int length = 3 + random.nextInt(8);
+            StringBuilder word = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                word.append((char) ('a' + random.nextInt(i < 2 ? 6 : 26)));
+            }
+            words.add(word.toString());
+        }
+        return new ArrayList<>(words);
+    }
+}
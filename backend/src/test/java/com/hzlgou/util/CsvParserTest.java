@@ -0,0 +1,106 @@
+package com.hzlgou.util;
+
+import com.hzlgou.model.Word;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvParserTest {
+
+    private static final String CSV = "word,lemma,pronunciation,derivation,tip\r\n"
+            + "apple,apple,/ˈæp.əl/,n.,苹果\r\n"
+            + "quote,quote,/kwəʊt/,\"v.\n引用\nn. 引文\",\"say \"\"hi\"\", then\nleave\"\r\n"
+            + "run,run,/rʌn/,\"v., n.\",跑\n"
+            + "multi,multi,\"line\r\none\r\ntwo\",x,\"\"\n"
+            + "last,last,/lɑːst/,adj.,最后\n";
+
+    private static final List<List<String>> EXPECTED = Arrays.asList(
+            Arrays.asList("apple", "apple", "/ˈæp.əl/", "n.", "苹果"),
+            Arrays.asList("quote", "quote", "/kwəʊt/", "v.\n引用\nn. 引文", "say \"hi\", then\nleave"),
+            Arrays.asList("run", "run", "/rʌn/", "v., n.", "跑"),
+            Arrays.asList("multi", "multi", "line\r\none\r\ntwo", "x", ""),
+            Arrays.asList("last", "last", "/lɑːst/", "adj.", "最后"));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sequentialParseKeepsQuotedNewlinesAcrossEveryChunkBoundary() throws IOException {
+        Path file = write(CSV);
+        int size = (int) Files.size(file);
+        // 逐个尝试所有块大小，使块的名义边界落在每个字节上，包括引号内的换行
+        for (int chunkSize = 1; chunkSize <= size; chunkSize++) {
+            List<List<String>> records = new ArrayList<>();
+            CsvParser.parse(file, true, fields -> records.add(Arrays.asList(fields)), chunkSize);
+            assertEquals(EXPECTED, records, "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void parallelParseKeepsQuotedNewlinesAcrossEveryChunkBoundary() throws IOException {
+        Path file = write(CSV);
+        int size = (int) Files.size(file);
+        for (int chunkSize = 1; chunkSize <= size; chunkSize++) {
+            List<List<String>> records = Collections.synchronizedList(new ArrayList<>());
+            CsvParser.parseParallel(file, true, 4,
+                    () -> fields -> records.add(Arrays.asList(fields)), chunkSize);
+            assertEquals(sorted(EXPECTED), sorted(records), "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void orderedParallelParseKeepsFileOrderAcrossEveryChunkBoundary() throws IOException {
+        Path file = write(CSV);
+        int size = (int) Files.size(file);
+        for (int chunkSize = 1; chunkSize <= size; chunkSize++) {
+            List<List<String>> records = new ArrayList<>();
+            Thread caller = Thread.currentThread();
+            CsvParser.parseParallelOrdered(file, true, 2, fields -> {
+                assertEquals(caller, Thread.currentThread());
+                records.add(Arrays.asList(fields));
+            }, chunkSize);
+            assertEquals(EXPECTED, records, "chunk size " + chunkSize);
+        }
+    }
+
+    @Test
+    void loadWordsSeesQuotedFieldStraddlingDefaultChunk() throws IOException {
+        // 用默认块大小（32MB）构造一个跨越块边界的多行引号字段，对应DictionaryCompiler的读取路径
+        StringBuilder csv = new StringBuilder("word,lemma,pronunciation,derivation,tip\n");
+        int rows = 0;
+        while (csv.length() < 32 * 1024 * 1024 - 200) {
+            csv.append("w").append(rows).append(",l,p,d,t\n");
+            rows++;
+        }
+        csv.append("straddle,s,p,\"").append("line\n".repeat(100)).append("\",t\n");
+        csv.append("after,a,p,d,t\n");
+        Path file = write(csv.toString());
+
+        List<Word> words = CSVUtil.loadWordsFromCSV(file.toString());
+        assertEquals(rows + 2, words.size());
+        assertEquals("straddle", words.get(rows).getWord());
+        assertEquals("line\n".repeat(100).trim(), words.get(rows).getDerivation());
+        assertEquals("after", words.get(rows + 1).getWord());
+    }
+
+    private Path write(String content) throws IOException {
+        Path file = tempDir.resolve("data.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static List<String> sorted(List<List<String>> records) {
+        return records.stream().map(r -> String.join("\u0000", r)).sorted().collect(Collectors.toList());
+    }
+}
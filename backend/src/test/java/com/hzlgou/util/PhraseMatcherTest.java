@@ -0,0 +1,106 @@
+package com.hzlgou.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PhraseMatcherTest {
+
+    @Test
+    void incrementalAdditionsMatchLikeAFullRebuild() {
+        Random random = new Random(7);
+        Set<List<String>> used = new HashSet<>();
+        Map<Long, List<String>> phrases = new LinkedHashMap<>();
+        for (long id = 0; id < 2000; id++) {
+            phrases.put(id, uniquePhrase(random, used));
+        }
+        PhraseMatcher matcher = new PhraseMatcher(phrases);
+
+        Set<Long> added = new HashSet<>();
+        Set<Long> addedAfterSnapshot = new HashSet<>();
+        PhraseMatcher snapshot = null;
+        PhraseMatcher compacted = null;
+        for (int i = 0; i < 300; i++) {
+            // 每5个中有1个替换已有短语，其余为新短语
+            long id = i % 5 == 0 ? random.nextInt(2000) : 2000 + i;
+            List<String> tokens = uniquePhrase(random, used);
+            phrases.put(id, tokens);
+            matcher = matcher.plus(id, tokens);
+            added.add(id);
+            if (snapshot != null) {
+                addedAfterSnapshot.add(id);
+            }
+            if (i == 200) {
+                snapshot = matcher;
+                compacted = snapshot.compact();
+            }
+        }
+        PhraseMatcher rebased = matcher.rebase(snapshot, compacted);
+        PhraseMatcher full = new PhraseMatcher(phrases);
+
+        assertEquals(added.size(), matcher.pendingSize());
+        assertEquals(0, compacted.pendingSize());
+        assertEquals(addedAfterSnapshot.size(), rebased.pendingSize());
+        assertEquals(full.size(), matcher.size());
+        assertEquals(full.size(), rebased.size());
+        for (int i = 0; i < 200; i++) {
+            List<String> text = tokens(random, 100);
+            String expected = describe(full.findAll(text));
+            assertEquals(expected, describe(matcher.findAll(text)));
+            assertEquals(expected, describe(rebased.findAll(text)));
+            assertEquals(expected, describe(matcher.compact().findAll(text)));
+        }
+    }
+
+    @Test
+    void rebaseKeepsMatcherRebuiltInTheMeantime() {
+        PhraseMatcher snapshot = new PhraseMatcher().plus(1L, Arrays.asList("look", "forward"));
+        PhraseMatcher rebuilt = new PhraseMatcher(Map.of(2L, Arrays.asList("give", "up")));
+        assertSame(rebuilt, rebuilt.rebase(snapshot, snapshot.compact()));
+    }
+
+    @Test
+    void addedPhraseShadowsIdenticalBasePhrase() {
+        PhraseMatcher matcher = new PhraseMatcher(Map.of(1L, Arrays.asList("give", "up")))
+                .plus(2L, Arrays.asList("Give", "up"));
+        assertEquals("0-2:2", describe(matcher.findAll(Arrays.asList("give", "up"))));
+    }
+
+    private static List<String> uniquePhrase(Random random, Set<List<String>> used) {
+        while (true) {
+            List<String> tokens = tokens(random, 2 + random.nextInt(3));
+            if (used.add(tokens)) {
+                return tokens;
+            }
+        }
+    }
+
+    private static List<String> tokens(Random random, int count) {
+        List<String> tokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tokens.add("t" + random.nextInt(40));
+        }
+        return tokens;
+    }
+
+    private static String describe(List<PhraseMatcher.Match> matches) {
+        StringBuilder result = new StringBuilder();
+        for (PhraseMatcher.Match match : matches) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(match.getStart()).append('-').append(match.getEnd()).append(':').append(match.getPhraseId());
+        }
+        return result.toString();
+    }
+}